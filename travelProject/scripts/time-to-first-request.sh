@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Starts the app with the given command, times how long until the URL first answers 200, then stops it.
+# Repeats RUNS times (default 5) and prints each time and the median, e.g.
+#
+#   scripts/time-to-first-request.sh http://localhost:8080/travel/getAllTravelPackages?limit=1 \
+#       java -XX:SharedArchiveFile=target/cds/application.jsa -jar target/cds/travelProject-0.0.1-SNAPSHOT-cds.jar
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+  echo "usage: $0 <url> <command...>" >&2
+  exit 2
+fi
+url=$1
+shift
+runs=${RUNS:-5}
+timeout_ms=${TIMEOUT_MS:-120000}
+
+times=()
+for run in $(seq "$runs"); do
+  start=$(date +%s%N)
+  "$@" > /dev/null 2>&1 &
+  pid=$!
+  elapsed=0
+  until curl -sf -o /dev/null "$url"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "run $run: the app exited before answering" >&2
+      exit 1
+    fi
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+    if [ "$elapsed" -gt "$timeout_ms" ]; then
+      kill "$pid"
+      echo "run $run: no answer within $timeout_ms ms" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "run $run: ${elapsed} ms"
+  times+=("$elapsed")
+done
+
+median=$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(( (runs + 1) / 2 ))p")
+echo "median: ${median} ms"
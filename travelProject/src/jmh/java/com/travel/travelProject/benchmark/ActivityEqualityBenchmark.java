@@ -0,0 +1,45 @@
+package com.travel.travelProject.benchmark;
+
+import com.travel.travelProject.model.Activity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Activity.equals and hashCode, used whenever activities are compared or put into hashed collections
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ActivityEqualityBenchmark {
+
+    private Activity activity;
+    private Activity sameValues;
+    private Activity otherDestination;
+
+    @Setup
+    public void setUp() {
+        activity = BenchmarkFixtures.activity("Surfing", "Goa");
+        sameValues = new Activity(activity.getId(), activity.getName(), activity.getDescription(),
+                activity.getCost(), activity.getCapacity(), activity.getDestinationName(), activity.getDestinationId());
+        // Differs only in the last compared field, so equals walks every field before failing
+        otherDestination = new Activity(activity.getId(), activity.getName(), activity.getDescription(),
+                activity.getCost(), activity.getCapacity(), "Kerala", activity.getDestinationId());
+    }
+
+    @Benchmark
+    public boolean equalsSameValues() {
+        return activity.equals(sameValues);
+    }
+
+    @Benchmark
+    public boolean equalsLastFieldDiffers() {
+        return activity.equals(otherDestination);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return activity.hashCode();
+    }
+}
@@ -0,0 +1,60 @@
+package com.travel.travelProject.benchmark;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.ActivityBooking;
+import com.travel.travelProject.model.Destination;
+import com.travel.travelProject.model.Passenger;
+import com.travel.travelProject.model.TravelPackage;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// In-memory travel packages for the benchmarks, seeded so every run sees the same data
+final class BenchmarkFixtures {
+
+    static final int DESTINATIONS = 5;
+    static final int ACTIVITIES_PER_DESTINATION = 4;
+    static final int ACTIVITIES_PER_PASSENGER = 3;
+
+    private BenchmarkFixtures() {
+    }
+
+    static Activity activity(String name, String destinationName) {
+        Activity activity = new Activity(name, "Guided " + name + " at " + destinationName, 120.0, 50, destinationName);
+        activity.setId(new ObjectId().toHexString());
+        return activity;
+    }
+
+    static TravelPackage travelPackage(int passengerCount) {
+        Random random = new Random(42);
+        TravelPackage travelPackage = new TravelPackage("Package-" + passengerCount, passengerCount);
+        travelPackage.setId(new ObjectId().toHexString());
+
+        List<Activity> activities = new ArrayList<>();
+        for (int d = 0; d < DESTINATIONS; d++) {
+            Destination destination = new Destination("Destination-" + d);
+            destination.setId(new ObjectId().toHexString());
+            destination.setTravelPackageID(travelPackage.getId());
+            for (int a = 0; a < ACTIVITIES_PER_DESTINATION; a++) {
+                Activity activity = activity("Activity-" + d + "-" + a, destination.getName());
+                destination.getActivities().add(activity);
+                activities.add(activity);
+            }
+            travelPackage.addDestination(destination);
+        }
+
+        Passenger.PassengerType[] types = Passenger.PassengerType.values();
+        for (int p = 0; p < passengerCount; p++) {
+            Passenger passenger = new Passenger("Passenger-" + p, String.valueOf(p), types[p % types.length], 10_000);
+            passenger.setId(new ObjectId().toHexString());
+            for (int s = 0; s < ACTIVITIES_PER_PASSENGER; s++) {
+                Activity activity = activities.get(random.nextInt(activities.size()));
+                passenger.getSignedUpActivities().add(new ActivityBooking(activity.getId(), activity.getCost()));
+            }
+            travelPackage.addPassenger(passenger);
+        }
+        return travelPackage;
+    }
+}
@@ -0,0 +1,34 @@
+package com.travel.travelProject.benchmark;
+
+import com.travel.travelProject.model.Passenger;
+import com.travel.travelProject.service.ActivitySeatService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// ActivitySeatService.countEnrollments, which counts the enrollments of a package from its loaded passengers
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnrollmentCountBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int passengers;
+
+    private List<Passenger> packagePassengers;
+
+    @Setup
+    public void setUp() {
+        packagePassengers = BenchmarkFixtures.travelPackage(passengers).getPassengers();
+    }
+
+    @Benchmark
+    public Map<String, Integer> countEnrollments() {
+        return ActivitySeatService.countEnrollments(packagePassengers);
+    }
+}
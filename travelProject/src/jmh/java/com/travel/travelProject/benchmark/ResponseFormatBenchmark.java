@@ -0,0 +1,93 @@
+package com.travel.travelProject.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.travel.travelProject.model.PassengerListResponse;
+import com.travel.travelProject.model.TravelPackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Passenger list response in each format the endpoints can negotiate, and a package read back as a bulk import
+// does. "json" and "readJson" are the mapper without Blackbird. The payload size of every format is printed once per trial.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseFormatBenchmark {
+
+    @Param({"10", "1000"})
+    private int passengers;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper jsonBlackbird = new ObjectMapper().registerModule(new BlackbirdModule());
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory()).registerModule(new BlackbirdModule());
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory()).registerModule(new BlackbirdModule());
+
+    private PassengerListResponse response;
+
+    private byte[] travelPackageJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        TravelPackage travelPackage = BenchmarkFixtures.travelPackage(passengers);
+        response = new PassengerListResponse(travelPackage.getName(), travelPackage.getPassengerCapacity(),
+                travelPackage.getPassengers().size(), travelPackage.getPassengers());
+        travelPackageJson = json.writeValueAsBytes(travelPackage);
+
+        System.out.printf("%npayload bytes, %d passengers: json=%d json+gzip=%d smile=%d smile+gzip=%d cbor=%d cbor+gzip=%d%n",
+                passengers, jsonBlackbird().length, jsonGzip().length, smile().length, gzip(smile()).length,
+                cbor().length, gzip(cbor()).length);
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return json.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] jsonBlackbird() throws JsonProcessingException {
+        return jsonBlackbird.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() throws IOException {
+        return gzip(jsonBlackbird.writeValueAsBytes(response));
+    }
+
+    @Benchmark
+    public byte[] smile() throws JsonProcessingException {
+        return smile.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws JsonProcessingException {
+        return cbor.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public TravelPackage readJson() throws IOException {
+        return json.readValue(travelPackageJson, TravelPackage.class);
+    }
+
+    @Benchmark
+    public TravelPackage readJsonBlackbird() throws IOException {
+        return jsonBlackbird.readValue(travelPackageJson, TravelPackage.class);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package com.travel.travelProject.benchmark;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.SearchResult;
+import com.travel.travelProject.service.TravelSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// TravelSearchIndex.search over a generated catalog: a rare word, a common word and a short prefix with filters
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final String[] PLACES = {"Goa", "Kerala", "Manali", "Ladakh", "Rishikesh", "Coorg", "Munnar", "Hampi"};
+    private static final String[] KINDS = {"Surfing", "Trek", "Kayaking", "Rafting", "Yoga", "Safari", "Cooking", "Paragliding"};
+    private static final String[] WORDS = {"guided", "sunrise", "river", "mountain", "beach", "forest", "heritage", "spice",
+            "waterfall", "village", "temple", "lake", "valley", "coral", "camp", "night"};
+
+    @Param({"10000", "300000"})
+    private int activities;
+
+    private TravelSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new TravelSearchIndex();
+        for (int i = 0; i < activities; i++) {
+            String place = PLACES[random.nextInt(PLACES.length)];
+            String destination = place + " " + WORDS[random.nextInt(WORDS.length)] + " " + (i % 500);
+            String name = KINDS[random.nextInt(KINDS.length)] + " " + place + " " + i;
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 8; w++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Activity activity = new Activity(name, description.toString(), 10 + random.nextInt(200), 50, destination);
+            activity.setId("a" + i);
+            index.addActivity(activity, "p" + (i % 1000), random.nextInt(50));
+        }
+    }
+
+    @Benchmark
+    public List<SearchResult> rareWord() {
+        return index.search("12345", null, null, null, null, 20);
+    }
+
+    @Benchmark
+    public List<SearchResult> commonWords() {
+        return index.search("goa surfing beach", null, null, null, null, 20);
+    }
+
+    @Benchmark
+    public List<SearchResult> prefixWithFilters() {
+        return index.search("kay ker riv", SearchResult.Type.ACTIVITY, 20.0, 150.0, 5, 20);
+    }
+}
@@ -0,0 +1,35 @@
+package com.travel.travelProject.benchmark;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.Passenger;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Passenger.addSignedUpActivity for each passenger type, the in-memory pricing step of every sign-up
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SignUpPricingBenchmark {
+
+    @Param({"STANDARD", "GOLD", "PREMIUM"})
+    private Passenger.PassengerType type;
+
+    private Activity activity;
+
+    @Setup
+    public void setUp() {
+        activity = BenchmarkFixtures.activity("Surfing", "Goa");
+    }
+
+    // A fresh passenger per call keeps the signed-up list from growing across iterations
+    @Benchmark
+    public Passenger addSignedUpActivity() {
+        Passenger passenger = new Passenger("Benchmark", "1", type, 1_000);
+        passenger.addSignedUpActivity(activity);
+        return passenger;
+    }
+}
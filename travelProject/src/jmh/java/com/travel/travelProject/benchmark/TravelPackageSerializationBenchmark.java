@@ -0,0 +1,35 @@
+package com.travel.travelProject.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.travelProject.model.TravelPackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of a fully populated TravelPackage, as written by the package endpoints
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TravelPackageSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int passengers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TravelPackage travelPackage;
+
+    @Setup
+    public void setUp() {
+        travelPackage = BenchmarkFixtures.travelPackage(passengers);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(travelPackage);
+    }
+}
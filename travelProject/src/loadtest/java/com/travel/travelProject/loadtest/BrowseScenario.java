@@ -0,0 +1,121 @@
+package com.travel.travelProject.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Read-mostly traffic over a catalog of packages: itineraries, availability, package lookups, search, passenger
+// lists and quotes, weighted roughly like a browsing front end. Nothing is written, so every answer must be a 200.
+final class BrowseScenario implements Scenario {
+
+    private static final String[] DESTINATIONS = {"Coast", "Mountains", "Old Town"};
+    private static final String[] ACTIVITIES = {"Surfing", "Hiking", "Museum", "Kayaking"};
+
+    private final TravelApiClient client;
+    private final LoadTest.Options options;
+    private final String prefix = "loadtest-browse-" + System.currentTimeMillis();
+
+    private final List<String> packageNames = new ArrayList<>();
+    private final List<String> packageIds = new ArrayList<>();
+
+    BrowseScenario(TravelApiClient client, LoadTest.Options options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    @Override
+    public String name() {
+        return "browsing " + options.packages() + " packages of " + options.passengers() + " passengers";
+    }
+
+    @Override
+    public void setUp() {
+        List<Map<String, Object>> travelPackages = new ArrayList<>();
+        for (int p = 0; p < options.packages(); p++) {
+            List<Map<String, Object>> itinerary = new ArrayList<>();
+            for (String destination : DESTINATIONS) {
+                List<Map<String, Object>> activities = new ArrayList<>();
+                for (int a = 0; a < ACTIVITIES.length; a++) {
+                    activities.add(Map.of("name", ACTIVITIES[a], "description", ACTIVITIES[a] + " in the " + destination,
+                            "cost", 20.0 * (a + 1), "capacity", 10 * (a + 1)));
+                }
+                itinerary.add(Map.of("name", destination, "activities", activities));
+            }
+            List<Map<String, Object>> passengers = new ArrayList<>();
+            for (int i = 0; i < options.passengers(); i++) {
+                passengers.add(Map.of("name", "Browser " + i, "passengerNumber", prefix + "-" + p + "-" + i,
+                        "type", i % 2 == 0 ? "STANDARD" : "GOLD", "balance", 500.0));
+            }
+            Map<String, Object> travelPackage = new LinkedHashMap<>();
+            travelPackage.put("name", prefix + "-" + p);
+            travelPackage.put("passengerCapacity", options.passengers());
+            travelPackage.put("itinerary", itinerary);
+            travelPackage.put("passengers", passengers);
+            travelPackages.add(travelPackage);
+        }
+
+        JsonNode imported = client.postJson("/travel/bulk/travelPackages", travelPackages);
+        if (imported.path("imported").asInt() != options.packages()) {
+            throw new IllegalStateException("Bulk import failed: " + imported);
+        }
+        for (int p = 0; p < options.packages(); p++) {
+            packageNames.add(prefix + "-" + p);
+            packageIds.add(client.getJson("/travel/getTravelPackage/" + prefix + "-" + p).path("id").asText());
+        }
+    }
+
+    @Override
+    public void warmUp() throws InterruptedException {
+        if (!options.warmup().isZero()) {
+            LoadStats discarded = new LoadStats();
+            LoadTest.drive(options.concurrency(), 0, options.warmup(), ticket -> browse(discarded));
+        }
+    }
+
+    @Override
+    public void run(LoadStats stats) throws InterruptedException {
+        if (options.requests() > 0) {
+            LoadTest.drive(options.concurrency(), options.requests(), null, ticket -> browse(stats));
+        } else {
+            LoadTest.drive(options.concurrency(), 0, options.duration(), ticket -> browse(stats));
+        }
+    }
+
+    // One request, picked by weight: itinerary 30, availableActivities 20, getTravelPackage 15, search 15,
+    // passengerList 10, quote 10
+    private void browse(LoadStats stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int p = random.nextInt(packageIds.size());
+        String id = packageIds.get(p);
+        int pick = random.nextInt(100);
+        if (pick < 30) {
+            stats.record("itinerary", client.get("/travel/itinerary/" + id));
+        } else if (pick < 50) {
+            stats.record("availableActivities", client.get("/travel/availableActivities/" + id));
+        } else if (pick < 65) {
+            stats.record("getTravelPackage", client.get("/travel/getTravelPackage/" + packageNames.get(p)));
+        } else if (pick < 80) {
+            String activity = ACTIVITIES[random.nextInt(ACTIVITIES.length)];
+            stats.record("search", client.get("/travel/search?q=" + activity.substring(0, 3 + random.nextInt(activity.length() - 2))));
+        } else if (pick < 90) {
+            stats.record("passengerList", client.get("/travel/passengerList/" + id));
+        } else {
+            stats.record("quote", client.post("/travel/quote", Map.of("type", "GOLD", "travelPackageId", id)));
+        }
+    }
+
+    @Override
+    public List<Check> verify(LoadStats stats) {
+        long notOk = 0;
+        for (String operation : List.of("itinerary", "availableActivities", "getTravelPackage", "search", "passengerList", "quote")) {
+            notOk += stats.requests(operation) - stats.count(operation, "200");
+        }
+        return List.of(
+                new Check("no server errors", stats.errors() == 0, stats.errors() + " failed or 5xx requests"),
+                new Check("every read answered 200", notOk == 0, notOk + " requests answered otherwise"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.travel.travelProject.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and outcome counts per operation, safe to record into from any number of threads
+final class LoadStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // A transport failure or a 5xx is an error, any other status is an answer the scenario expects to handle
+    void record(String operation, TravelApiClient.Response response) {
+        Histogram histogram = latencies.computeIfAbsent(operation, key -> new Histogram(MAX_LATENCY_MICROS, 3));
+        synchronized (histogram) {
+            histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(response.nanos()), MAX_LATENCY_MICROS));
+        }
+        String outcome = response.failure() != null ? response.failure() : String.valueOf(response.status());
+        outcomes.computeIfAbsent(operation, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, key -> new LongAdder())
+                .increment();
+        requests.increment();
+        if (response.failure() != null || response.status() >= 500) {
+            errors.increment();
+        }
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long requests(String operation) {
+        return outcomes.getOrDefault(operation, Map.of()).values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    long count(String operation, String outcome) {
+        LongAdder count = outcomes.getOrDefault(operation, Map.of()).get(outcome);
+        return count == null ? 0 : count.sum();
+    }
+
+    void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%nrequests %d in %.2f s, %.1f req/s, errors %d (%.2f%%)%n", requests(), seconds, requests() / seconds,
+                errors(), requests() == 0 ? 0.0 : 100.0 * errors() / requests());
+        out.printf("%-22s %9s %9s %9s %9s %9s %9s   %s%n", "operation", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                "outcomes");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(latencies).entrySet()) {
+            Histogram histogram;
+            synchronized (entry.getValue()) {
+                histogram = entry.getValue().copy();
+            }
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.get(entry.getKey()).forEach((outcome, count) -> counts.put(outcome, count.sum()));
+            out.printf("%-22s %9d %9.2f %9.2f %9.2f %9.2f %9.2f   %s%n", entry.getKey(), histogram.getTotalCount(),
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0, counts);
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
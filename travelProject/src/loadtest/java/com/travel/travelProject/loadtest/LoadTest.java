@@ -0,0 +1,103 @@
+package com.travel.travelProject.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+// Drives a running app through the /travel API and reports throughput, latency percentiles, outcomes per
+// operation and the scenario's correctness checks. Exits with 1 when a check fails, so a release script can gate on it.
+//
+//   mvn -Ploadtest verify -DskipTests -Dloadtest.args="--scenario=signup-race --passengers=5000 --seats=50"
+public final class LoadTest {
+
+    record Options(String baseUrl, String scenario, int passengers, int seats, int packages, int concurrency,
+                   long requests, Duration duration, Duration warmup, Duration timeout) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            String scenario = values.getOrDefault("scenario", "signup-race");
+            boolean race = scenario.equals("signup-race");
+            return new Options(
+                    values.getOrDefault("base-url", "http://localhost:8080"),
+                    scenario,
+                    Integer.parseInt(values.getOrDefault("passengers", race ? "5000" : "50")),
+                    Integer.parseInt(values.getOrDefault("seats", "50")),
+                    Integer.parseInt(values.getOrDefault("packages", "20")),
+                    Integer.parseInt(values.getOrDefault("concurrency", race ? "500" : "64")),
+                    Long.parseLong(values.getOrDefault("requests", "0")),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "5"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("timeout", "30"))));
+        }
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = Options.parse(args);
+        TravelApiClient client = new TravelApiClient(options.baseUrl(), options.timeout());
+        Scenario scenario = switch (options.scenario()) {
+            case "signup-race" -> new SignUpRaceScenario(client, options);
+            case "browse" -> new BrowseScenario(client, options);
+            default -> throw new IllegalArgumentException("Unknown scenario " + options.scenario() + ", use signup-race or browse");
+        };
+
+        System.out.printf("scenario %s against %s, %s%n", scenario.name(), options.baseUrl(), options);
+        long setUpStart = System.nanoTime();
+        scenario.setUp();
+        System.out.printf("set up in %d ms%n", (System.nanoTime() - setUpStart) / 1_000_000);
+        scenario.warmUp();
+
+        LoadStats stats = new LoadStats();
+        long start = System.nanoTime();
+        scenario.run(stats);
+        long elapsed = System.nanoTime() - start;
+        stats.print(System.out, elapsed);
+
+        List<Scenario.Check> checks = scenario.verify(stats);
+        System.out.println();
+        for (Scenario.Check check : checks) {
+            System.out.printf("%-4s %-34s %s%n", check.passed() ? "PASS" : "FAIL", check.name(), check.detail());
+        }
+        System.exit(checks.stream().allMatch(Scenario.Check::passed) ? 0 : 1);
+    }
+
+    // Runs the task on `concurrency` virtual threads released together. Each takes the next ticket until
+    // `tickets` are used up (0 for no limit) or `duration` has passed (null for no limit).
+    static void drive(int concurrency, long tickets, Duration duration, LongConsumer task) throws InterruptedException {
+        if (tickets == 0 && duration == null) {
+            throw new IllegalArgumentException("Either a ticket count or a duration is required");
+        }
+        AtomicLong next = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (long ticket = next.getAndIncrement(); tickets == 0 || ticket < tickets; ticket = next.getAndIncrement()) {
+                        if (duration != null && System.nanoTime() - startNanos > duration.toNanos()) {
+                            break;
+                        }
+                        task.accept(ticket);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+    }
+}
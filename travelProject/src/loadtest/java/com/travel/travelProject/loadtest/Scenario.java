@@ -0,0 +1,22 @@
+package com.travel.travelProject.loadtest;
+
+import java.util.List;
+
+// A load scenario: creates its own data through the API, drives the load, then checks the state it left behind
+interface Scenario {
+
+    record Check(String name, boolean passed, String detail) {
+    }
+
+    String name();
+
+    void setUp();
+
+    // Load that is not measured, for scenarios that can repeat their requests without changing what they verify
+    default void warmUp() throws InterruptedException {
+    }
+
+    void run(LoadStats stats) throws InterruptedException;
+
+    List<Check> verify(LoadStats stats);
+}
@@ -0,0 +1,118 @@
+package com.travel.travelProject.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Every passenger of one package tries to sign up for the same activity at once. One in ten passengers cannot
+// afford it, the rest race for the seats. Afterwards no seat may be sold twice, no balance may go negative and
+// every charge must match a booking.
+final class SignUpRaceScenario implements Scenario {
+
+    private static final String SIGN_UP = "signupActivity";
+    private static final double COST = 100.0;
+    private static final double LOW_BALANCE = 50.0;
+    private static final String[] TYPES = {"STANDARD", "GOLD", "PREMIUM"};
+
+    private final TravelApiClient client;
+    private final LoadTest.Options options;
+    private final String packageName = "loadtest-race-" + System.currentTimeMillis();
+
+    private String travelPackageId;
+    private String activityId;
+    private final List<String> passengerIds = new ArrayList<>();
+    private final Map<String, Double> initialBalances = new HashMap<>();
+
+    SignUpRaceScenario(TravelApiClient client, LoadTest.Options options) {
+        this.client = client;
+        this.options = options;
+    }
+
+    @Override
+    public String name() {
+        return options.passengers() + " passengers racing for " + options.seats() + " seats";
+    }
+
+    // One bulk import creates the package, its activity and all passengers, then one read collects their ids
+    @Override
+    public void setUp() {
+        List<Map<String, Object>> passengers = new ArrayList<>();
+        for (int i = 0; i < options.passengers(); i++) {
+            Map<String, Object> passenger = new LinkedHashMap<>();
+            passenger.put("name", "Racer " + i);
+            passenger.put("passengerNumber", packageName + "-" + i);
+            passenger.put("type", TYPES[i % TYPES.length]);
+            passenger.put("balance", i % 10 == 9 ? LOW_BALANCE : 1000.0);
+            passengers.add(passenger);
+        }
+        Map<String, Object> activity = Map.of("name", "Race activity", "description", "Contended activity",
+                "cost", COST, "capacity", options.seats());
+        Map<String, Object> travelPackage = Map.of("name", packageName, "passengerCapacity", options.passengers(),
+                "itinerary", List.of(Map.of("name", "Race destination", "activities", List.of(activity))),
+                "passengers", passengers);
+
+        JsonNode imported = client.postJson("/travel/bulk/travelPackages", List.of(travelPackage));
+        if (imported.path("imported").asInt() != 1) {
+            throw new IllegalStateException("Bulk import failed: " + imported);
+        }
+
+        JsonNode stored = client.getJson("/travel/getTravelPackage/" + packageName);
+        travelPackageId = stored.path("id").asText();
+        activityId = stored.path("itinerary").path(0).path("activities").path(0).path("id").asText();
+        for (JsonNode passenger : stored.path("passengers")) {
+            passengerIds.add(passenger.path("id").asText());
+            initialBalances.put(passenger.path("id").asText(), passenger.path("balance").asDouble());
+        }
+    }
+
+    @Override
+    public void run(LoadStats stats) throws InterruptedException {
+        LoadTest.drive(options.concurrency(), passengerIds.size(), null, ticket -> stats.record(SIGN_UP,
+                client.post("/travel/signupActivity/" + travelPackageId + "/" + passengerIds.get((int) ticket) + "/" + activityId, null)));
+    }
+
+    @Override
+    public List<Check> verify(LoadStats stats) {
+        JsonNode stored = client.getJson("/travel/getTravelPackage/" + packageName);
+        int booked = 0;
+        int doubleBooked = 0;
+        int negativeBalances = 0;
+        int chargeMismatches = 0;
+        for (JsonNode passenger : stored.path("passengers")) {
+            int bookings = 0;
+            double paid = 0;
+            for (JsonNode booking : passenger.path("signedUpActivities")) {
+                if (activityId.equals(booking.path("activityId").asText())) {
+                    bookings++;
+                    paid += booking.path("pricePaid").asDouble();
+                }
+            }
+            booked += Math.min(bookings, 1);
+            doubleBooked += bookings > 1 ? 1 : 0;
+            double balance = passenger.path("balance").asDouble();
+            negativeBalances += balance < 0 ? 1 : 0;
+            chargeMismatches += Math.abs(initialBalances.get(passenger.path("id").asText()) - balance - paid) > 1e-6 ? 1 : 0;
+        }
+
+        long signedUp = stats.count(SIGN_UP, "200");
+        long soldOut = stats.count(SIGN_UP, "409");
+        JsonNode seats = client.getJson("/travel/availability/" + travelPackageId).path("activities").path(activityId);
+        int seatsLeft = seats.path("seatsLeft").asInt();
+
+        return List.of(
+                new Check("no oversold seats", booked <= options.seats(), booked + " booked of " + options.seats() + " seats"),
+                new Check("every 200 is one booking", signedUp == booked, signedUp + " answered 200, " + booked + " booked"),
+                new Check("no double bookings", doubleBooked == 0, doubleBooked + " passengers booked twice"),
+                new Check("no negative balances", negativeBalances == 0, negativeBalances + " negative balances"),
+                new Check("charges match bookings", chargeMismatches == 0, chargeMismatches + " balances off from their bookings"),
+                new Check("sold out only when full", soldOut == 0 || booked == options.seats(),
+                        soldOut + " answered 409 with " + (options.seats() - booked) + " seats unsold"),
+                new Check("availability matches bookings", seatsLeft == options.seats() - booked,
+                        seatsLeft + " seats left in the read model"),
+                new Check("no server errors", stats.errors() == 0, stats.errors() + " failed or 5xx requests"));
+    }
+}
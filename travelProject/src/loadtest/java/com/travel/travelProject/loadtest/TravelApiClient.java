@@ -0,0 +1,94 @@
+package com.travel.travelProject.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Thin client for the /travel API. Every call is timed, failures to connect or time out are returned instead of thrown.
+// Cookies are kept like a browser does, so the travel_last_write cookie sends reads after this client's writes to the
+// primary, e.g. the verification reads after a run.
+final class TravelApiClient {
+
+    record Response(int status, String body, long nanos, String failure) {
+
+        boolean ok() {
+            return failure == null && status >= 200 && status < 300;
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    TravelApiClient(String baseUrl, Duration timeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .cookieHandler(new CookieManager())
+                .build();
+    }
+
+    Response get(String path) {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    Response post(String path, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot serialize request body", e);
+        }
+        return send(HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json").POST(publisher));
+    }
+
+    // Setup and verification calls must succeed, a failure there stops the run
+    JsonNode getJson(String path) {
+        return json(get(path), path);
+    }
+
+    JsonNode postJson(String path, Object body) {
+        return json(post(path, body), path);
+    }
+
+    private JsonNode json(Response response, String path) {
+        if (!response.ok()) {
+            throw new IllegalStateException(path + " failed: "
+                    + (response.failure() != null ? response.failure() : response.status() + " " + response.body()));
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException(path + " returned invalid JSON", e);
+        }
+    }
+
+    private Response send(HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.timeout(timeout).build(), HttpResponse.BodyHandlers.ofString());
+            return new Response(response.statusCode(), response.body(), System.nanoTime() - start, null);
+        } catch (IOException e) {
+            return new Response(0, null, System.nanoTime() - start, e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Response(0, null, System.nanoTime() - start, "Interrupted");
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+}
@@ -0,0 +1,39 @@
+package com.travel.travelProject.config;
+
+import com.mongodb.ConnectionString;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.net.InetSocketAddress;
+
+// Stand-in for a local Mongo: an in-process server that speaks the wire protocol and keeps every collection in
+// memory. The repositories, derived queries, MongoTemplate updates and aggregations run unchanged against it, for
+// either web profile. Nothing survives a restart.
+// Index support is partial: only unique indexes are enforced, the others (passengerNumber,
+// signedUpActivities.activityId) are accepted but never used, and partialFilterExpression is ignored. So the
+// destinationId_name index also covers activities created without a destination (/createActivity), and a second one
+// with the same name fails with E11000 here while Mongo accepts it.
+@Configuration
+@Profile("inmemory")
+public class InMemoryMongoConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public MongoServer inMemoryMongoServer() {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        server.bind("localhost", 0);
+        return server;
+    }
+
+    // Takes precedence over spring.data.mongodb.uri for both the blocking and the reactive client
+    @Bean
+    public MongoConnectionDetails inMemoryMongoConnectionDetails(MongoServer inMemoryMongoServer) {
+        InetSocketAddress address = inMemoryMongoServer.getLocalAddress();
+        ConnectionString connectionString = new ConnectionString(
+                "mongodb://" + address.getHostString() + ":" + address.getPort() + "/travel");
+        return () -> connectionString;
+    }
+}
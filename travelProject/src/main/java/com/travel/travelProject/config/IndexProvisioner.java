@@ -0,0 +1,188 @@
+package com.travel.travelProject.config;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoException;
+import com.travel.travelProject.model.*;
+import com.travel.travelProject.repository.*;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Creates the indexes declared on the models once every bean is built, then explains every repository query and
+// reports the ones the server would answer with a collection scan. This runs while the context is still refreshing,
+// before the web server starts, so travel.indexes.verify=fail stops startup before any request is served.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "travel.indexes.provision", havingValue = "true", matchIfMissing = true)
+public class IndexProvisioner implements SmartInitializingSingleton {
+
+    public enum Verification {
+        OFF,
+        WARN,
+        FAIL
+    }
+
+    record IndexedQuery(String name, Class<?> entity, Document filter) {
+    }
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            TravelPackage.class, Passenger.class, Activity.class, Destination.class, ActivityEnrollment.class);
+
+    // The derived query methods of these repositories are read by reflection, so new finders are checked as added
+    private static final List<Class<?>> REPOSITORIES = List.of(
+            TravelPackageRepository.class, PassengerRepository.class, ActivityRepository.class,
+            DestinationRepository.class, ReactiveTravelPackageRepository.class, ReactivePassengerRepository.class,
+            ReactiveActivityRepository.class, ReactiveDestinationRepository.class);
+
+    // MongoTemplate queries can't be discovered, so this list has to be kept in sync with the services by hand.
+    // Lookups by _id are left out, they always use the primary key index.
+    static final List<IndexedQuery> SERVICE_QUERIES = List.of(
+            new IndexedQuery("TravelPackageService / ReactiveTravelPackageService lookup by name", TravelPackage.class,
+                    new Document("name", "")),
+            new IndexedQuery("BulkImportService duplicate name check", TravelPackage.class,
+                    new Document("name", new Document("$in", List.of("")))),
+            new IndexedQuery("ReactiveTravelPackageService enrolled passengers", Passenger.class,
+                    new Document("signedUpActivities.activityId", new ObjectId())),
+            new IndexedQuery("ActivitySeatService / PackageAvailabilityService enrollment counts", Passenger.class,
+                    new Document("signedUpActivities.activityId", new Document("$in", List.of(new ObjectId())))));
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Value("${travel.indexes.verify:warn}")
+    private Verification verification;
+
+    @Autowired
+    public IndexProvisioner(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        provisionIndexes();
+    }
+
+    void provisionIndexes() {
+        try {
+            createIndexes();
+        } catch (DataAccessException | MongoException e) {
+            report("Could not provision indexes: " + e.getMessage());
+            return;
+        }
+
+        if (verification == Verification.OFF) {
+            return;
+        }
+        try {
+            verifyQueryPlans();
+        } catch (DataAccessException | MongoException e) {
+            report("Could not verify query plans: " + e.getMessage());
+        }
+    }
+
+    void createIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(entity);
+            resolver.resolveIndexFor(entity).forEach(indexOperations::ensureIndex);
+        }
+        log.info("Indexes provisioned for {} collections", INDEXED_ENTITIES.size());
+    }
+
+    void verifyQueryPlans() {
+        List<IndexedQuery> queries = new ArrayList<>(repositoryQueries(mappingContext));
+        queries.addAll(SERVICE_QUERIES);
+
+        List<String> collectionScans = new ArrayList<>();
+        for (IndexedQuery indexedQuery : queries) {
+            Document explain = mongoTemplate.getCollection(mongoTemplate.getCollectionName(indexedQuery.entity()))
+                    .find(indexedQuery.filter())
+                    .explain(ExplainVerbosity.QUERY_PLANNER);
+            Object winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan");
+            if (usesCollectionScan(winningPlan)) {
+                collectionScans.add(indexedQuery.name() + " " + indexedQuery.filter().toJson());
+            }
+        }
+
+        if (collectionScans.isEmpty()) {
+            log.info("All {} repository queries are index-backed", queries.size());
+        } else {
+            report("Queries answered by a collection scan: " + collectionScans);
+        }
+    }
+
+    // Turns every derived query method (findBy, existsBy, countBy, ...) into its filter with placeholder values;
+    // the planner picks an index from the fields and operators, never from the values
+    static List<IndexedQuery> repositoryQueries(MongoMappingContext mappingContext) {
+        List<IndexedQuery> queries = new ArrayList<>();
+        for (Class<?> repository : REPOSITORIES) {
+            Class<?> entity = new DefaultRepositoryMetadata(repository).getDomainType();
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isDefault() && !method.isSynthetic())
+                    .sorted(Comparator.comparing(Method::getName))
+                    .forEach(method -> {
+                        Document filter = new Document();
+                        new PartTree(method.getName(), entity).getParts()
+                                .forEach(part -> filter.append(fieldPath(mappingContext, part), placeholder(part)));
+                        queries.add(new IndexedQuery(repository.getSimpleName() + "." + method.getName(), entity, filter));
+                    });
+        }
+        return queries;
+    }
+
+    private static String fieldPath(MongoMappingContext mappingContext, Part part) {
+        return mappingContext.getPersistentPropertyPath(part.getProperty())
+                .toDotPath(MongoPersistentProperty::getFieldName);
+    }
+
+    private static Object placeholder(Part part) {
+        return switch (part.getType()) {
+            case IN, NOT_IN -> new Document("$in", List.of(""));
+            case GREATER_THAN, AFTER -> new Document("$gt", "");
+            case LESS_THAN, BEFORE -> new Document("$lt", "");
+            default -> "";
+        };
+    }
+
+    // Plans nest their input stages (and differ between engines), so look for a COLLSCAN stage anywhere in the tree
+    static boolean usesCollectionScan(Object plan) {
+        if (plan instanceof Document stage) {
+            if ("COLLSCAN".equals(stage.get("stage"))) {
+                return true;
+            }
+            return stage.values().stream().anyMatch(IndexProvisioner::usesCollectionScan);
+        }
+        if (plan instanceof List<?> stages) {
+            return stages.stream().anyMatch(IndexProvisioner::usesCollectionScan);
+        }
+        return false;
+    }
+
+    private void report(String message) {
+        if (verification == Verification.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.travel.travelProject.config;
+
+import com.mongodb.event.CommandEvent;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoCommandTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoCommandTagsProvider;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Tags repository and Mongo command timers with the endpoint that issued them, so a slow endpoint can be traced
+// to the query behind it. The blocking driver runs commands on the request thread, so the request is still bound.
+@Configuration
+public class MetricsConfig {
+
+    private static final String NO_ENDPOINT = "none";
+
+    @Bean
+    public MongoCommandTagsProvider mongoCommandTagsProvider() {
+        return new DefaultMongoCommandTagsProvider() {
+            @Override
+            public Iterable<Tag> commandTags(CommandEvent event) {
+                return Tags.of(super.commandTags(event)).and("endpoint", currentEndpoint());
+            }
+        };
+    }
+
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaultTags = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaultTags.repositoryTags(invocation)).and("endpoint", currentEndpoint());
+    }
+
+    // The matched route pattern rather than the raw path, which would create a series per package id
+    static String currentEndpoint() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            Object pattern = attributes.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                return attributes.getRequest().getMethod() + " " + pattern;
+            }
+        }
+        return NO_ENDPOINT;
+    }
+}
@@ -0,0 +1,31 @@
+package com.travel.travelProject.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+// Bounds the Mongo connection pool. With virtual threads far more requests can be in flight than there are
+// connections, so requests queue for a connection and fail after maxWaitMs instead of piling up without limit.
+@Configuration
+public class MongoPoolConfig {
+
+    @Value("${travel.mongo.pool.max-size:100}")
+    private int maxSize;
+
+    @Value("${travel.mongo.pool.max-connecting:4}")
+    private int maxConnecting;
+
+    @Value("${travel.mongo.pool.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer() {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .maxConnecting(maxConnecting)
+                .maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
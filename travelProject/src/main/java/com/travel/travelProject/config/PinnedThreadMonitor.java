@@ -0,0 +1,61 @@
+package com.travel.travelProject.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Logs virtual threads that stay pinned to their carrier (e.g. blocking inside synchronized) for longer than the threshold.
+// Only active when virtual threads are enabled, it reads the JDK's own jdk.VirtualThreadPinned JFR event.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "travel.virtual-threads.pinning-monitor.enabled"}, havingValue = "true")
+public class PinnedThreadMonitor {
+
+    private static final int MAX_FRAMES = 8;
+
+    @Value("${travel.virtual-threads.pinning-monitor.threshold-ms:20}")
+    private long thresholdMs;
+
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private RecordingStream recordingStream;
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::logPinned);
+        recordingStream.startAsync();
+        log.info("Watching for virtual threads pinned longer than {} ms", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    public long getPinnedCount() {
+        return pinnedCount.get();
+    }
+
+    private void logPinned(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        StringBuilder frames = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().stream().limit(MAX_FRAMES).map(RecordedFrame::getMethod)
+                    .forEach(method -> frames.append("\n\tat ").append(method.getType().getName()).append('.').append(method.getName()));
+        }
+        log.warn("Virtual thread {} pinned for {} ms{}", event.getThread() != null ? event.getThread().getJavaName() : "?",
+                event.getDuration().toMillis(), frames);
+    }
+}
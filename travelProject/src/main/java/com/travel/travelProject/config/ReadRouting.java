@@ -0,0 +1,93 @@
+package com.travel.travelProject.config;
+
+import com.mongodb.ReadPreference;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Sends catalog reads to secondaries that lag the primary by at most maxStalenessSeconds. Every write request leaves
+// a cookie with its time, and reads from a client that wrote within that window go to the primary instead, so a
+// client always reads its own writes. Lookups read from a secondary are cached for up to cacheTtlSeconds, so a value
+// can be that much older again: the window covers both.
+@Component
+public class ReadRouting extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE_COOKIE = "travel_last_write";
+    // The driver rejects a smaller bound: secondaries report their lag every 10 s and are probed every 10 s
+    private static final long MIN_MAX_STALENESS_SECONDS = 90;
+
+    private final boolean secondaryReads;
+    private final long maxStalenessSeconds;
+    // How long after a write the client's reads skip the secondaries and the caches
+    private final long readOwnWritesSeconds;
+    private final ReadPreference browsePreference;
+
+    public ReadRouting(@Value("${travel.reads.secondary.enabled:true}") boolean secondaryReads,
+                       @Value("${travel.reads.max-staleness-seconds:90}") long maxStalenessSeconds,
+                       @Value("${travel.cache.ttl-seconds:60}") long cacheTtlSeconds) {
+        if (maxStalenessSeconds < MIN_MAX_STALENESS_SECONDS) {
+            throw new IllegalArgumentException("travel.reads.max-staleness-seconds must be at least " + MIN_MAX_STALENESS_SECONDS);
+        }
+        this.secondaryReads = secondaryReads;
+        this.maxStalenessSeconds = maxStalenessSeconds;
+        this.readOwnWritesSeconds = maxStalenessSeconds + cacheTtlSeconds;
+        this.browsePreference = secondaryReads
+                ? ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS)
+                : ReadPreference.primary();
+    }
+
+    // Read preference for catalog reads made while serving the current request
+    public ReadPreference browse() {
+        return secondaryAllowed() ? browsePreference : ReadPreference.primary();
+    }
+
+    // False when the current client wrote recently, its reads must then skip the caches as well as the secondaries
+    public boolean secondaryAllowed() {
+        if (!secondaryReads) {
+            return true;
+        }
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)
+                || attributes.getRequest().getCookies() == null) {
+            return true;
+        }
+        for (Cookie cookie : attributes.getRequest().getCookies()) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName()) && wroteRecently(cookie.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Set before the handler runs, once the body is written the response is committed
+        if (secondaryReads && !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            Cookie lastWrite = new Cookie(LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis()));
+            lastWrite.setPath("/");
+            lastWrite.setHttpOnly(true);
+            lastWrite.setMaxAge((int) readOwnWritesSeconds);
+            response.addCookie(lastWrite);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean wroteRecently(String lastWrite) {
+        try {
+            return System.currentTimeMillis() - Long.parseLong(lastWrite) < TimeUnit.SECONDS.toMillis(readOwnWritesSeconds);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.travel.travelProject.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// Besides JSON, the endpoints answer in Smile (application/x-jackson-smile) or CBOR (application/cbor) when the
+// Accept header asks for it. Both mappers come from the same builder as the JSON one, so they share its modules
+// and settings, Blackbird included, which reads and writes the model properties through generated lambdas
+// instead of reflection.
+@Configuration
+public class ResponseFormatConfig {
+
+    // A native image cannot define Blackbird's lambdas at runtime, Jackson keeps to reflection there
+    @Bean
+    public Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule("reflection-access") : new BlackbirdModule();
+    }
+
+    // Replace the Spring MVC defaults, which are built without the application's Jackson settings
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    // The reactive profile offers Smile only, the WebFlux Jackson CBOR encoder cannot write the Flux endpoints.
+    // The mime type must be given, the codecs fall back to the JSON ones without it.
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter) {
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileHttpMessageConverter.getObjectMapper(), smile));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileHttpMessageConverter.getObjectMapper(), smile));
+        };
+    }
+}
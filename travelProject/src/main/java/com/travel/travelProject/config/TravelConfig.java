@@ -2,12 +2,18 @@ package com.travel.travelProject.config;
 
 //import com.travel.travelProject.controller.TravelController;
 import com.travel.travelProject.model.TravelPackage;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+// The model classes are plain documents and DTOs, not beans, so the package is not component-scanned. Their
+// reflection hints for AOT and native images are registered by TravelRuntimeHints instead.
 @Configuration
-@ComponentScan(basePackages = "com.travel.travelProject.model")
+@EnableCaching
+@EnableScheduling
+@ImportRuntimeHints(TravelRuntimeHints.class)
 public class TravelConfig {
 
     // @Bean
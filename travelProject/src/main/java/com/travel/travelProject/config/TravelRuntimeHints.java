@@ -0,0 +1,31 @@
+package com.travel.travelProject.config;
+
+import com.travel.travelProject.service.GroupSignUpService;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+
+// Reflection a native image needs at runtime. Every model type is read and written by Jackson and by the Mongo mapping,
+// also the ones only reached through Object-typed responses, MongoTemplate or org.bson.Document conversions. The
+// cache conditions call ReadRouting from SpEL, and the group sign-up mode is bound from a request parameter.
+public class TravelRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final String MODEL_PACKAGE = "com.travel.travelProject.model";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        for (BeanDefinition model : scanner.findCandidateComponents(MODEL_PACKAGE)) {
+            hints.reflection().registerType(TypeReference.of(model.getBeanClassName()), MemberCategory.values());
+        }
+
+        hints.reflection().registerType(ReadRouting.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(GroupSignUpService.Mode.class, MemberCategory.values());
+    }
+}
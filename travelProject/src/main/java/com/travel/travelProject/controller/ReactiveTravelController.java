@@ -0,0 +1,316 @@
+package com.travel.travelProject.controller;
+
+import com.travel.travelProject.Exception.NotFoundException;
+import com.travel.travelProject.model.*;
+import com.travel.travelProject.service.BulkImportService;
+import com.travel.travelProject.service.CacheStatsService;
+import com.travel.travelProject.service.GroupSignUpService;
+import com.travel.travelProject.service.QuoteService;
+import com.travel.travelProject.service.ReactiveTravelPackageService;
+import com.travel.travelProject.service.TravelMetrics;
+import com.travel.travelProject.service.TravelPackageService;
+import com.travel.travelProject.service.TravelSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+// Same /travel API as TravelController, served by WebFlux when the "reactive" profile is active. Endpoints without a
+// reactive service call the servlet stack's services off the event loop.
+@RestController
+@RequestMapping("/travel")
+@Profile("reactive")
+@Slf4j
+public class ReactiveTravelController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private ReactiveTravelPackageService travelPackageService;
+
+    @Autowired
+    private TravelPackageService blockingTravelPackageService;
+
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private GroupSignUpService groupSignUpService;
+
+    @Autowired
+    private TravelSearchService travelSearchService;
+
+    @Autowired
+    private QuoteService quoteService;
+
+    @Autowired
+    private TravelMetrics travelMetrics;
+
+    // These services use the blocking driver, so they run on the bounded elastic scheduler
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // API to print itinerary of the travel package
+    @GetMapping("/itinerary/{travelPackageId}")
+    public Mono<ResponseEntity<TravelPackageItinerary>> printItinerary(@PathVariable String travelPackageId) {
+        return travelPackageService.getItinerary(travelPackageId)
+                .map(itinerary -> new ResponseEntity<>(itinerary, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // API to print the passenger list of the travel package
+    @GetMapping("/passengerList/{travelPackageId}")
+    public Mono<ResponseEntity<PassengerListResponse>> printPassengerList(@PathVariable String travelPackageId) {
+        return travelPackageService.getPassengerList(travelPackageId)
+                .map(response -> new ResponseEntity<>(response, HttpStatus.OK));
+    }
+
+    // Streams the passengers one per line instead of building the whole list
+    @GetMapping(value = "/passengerList/{travelPackageId}", produces = NDJSON)
+    public Flux<Passenger> streamPassengerList(@PathVariable String travelPackageId) {
+        return travelPackageService.getPassengersForTravelPackage(travelPackageId);
+    }
+
+    // API to print the details of an individual passenger
+    @GetMapping("/passengerDetails/{passengerId}")
+    public Mono<PassengerDetails> printPassengerDetails(@PathVariable String passengerId) {
+        return travelPackageService.getPassengerDetails(passengerId);
+    }
+
+    // API to print details of activities with available spaces
+    @GetMapping("/availableActivities/{travelPackageId}")
+    public Mono<ResponseEntity<Object>> printAvailableActivities(@PathVariable String travelPackageId) {
+        return travelPackageService.getAvailableActivities(travelPackageId).collectList()
+                .map(availableActivities -> new ResponseEntity<Object>(availableActivities, HttpStatus.OK))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @GetMapping(value = "/availableActivities/{travelPackageId}", produces = NDJSON)
+    public Flux<AvailableActivity> streamAvailableActivities(@PathVariable String travelPackageId) {
+        return travelPackageService.getAvailableActivities(travelPackageId);
+    }
+
+    // API for a passenger to sign up for an activity
+    @PostMapping("/signupActivity/{travelPackageId}/{passengerId}/{activityID}")
+    public Mono<ResponseEntity<String>> signUpForActivity(
+            @PathVariable String travelPackageId,
+            @PathVariable String passengerId,
+            @PathVariable String activityID) {
+
+        return travelPackageService.signUpForActivity(travelPackageId, passengerId, activityID)
+                .map(status -> {
+                    if (status == HttpStatus.CONFLICT) {
+                        travelMetrics.recordSignUp(TravelMetrics.SIGNUP_CONFLICT);
+                        return new ResponseEntity<>("Capacity is full for this activity", status);
+                    }
+                    travelMetrics.recordSignUp(TravelMetrics.SIGNUP_SUCCESS);
+                    return new ResponseEntity<>("Signup successful", status);
+                })
+                .onErrorResume(NotFoundException.class, e -> {
+                    travelMetrics.recordSignUp(TravelMetrics.SIGNUP_NOT_FOUND);
+                    return Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND));
+                })
+                .onErrorResume(RuntimeException.class, e -> {
+                    travelMetrics.recordSignUp(TravelMetrics.SIGNUP_REJECTED);
+                    return Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST));
+                });
+    }
+
+    // API to sign up a group of passengers of one package for activities in one request
+    @PostMapping("/signupActivities/{travelPackageId}")
+    public Mono<ResponseEntity<Object>> signUpGroupForActivities(
+            @PathVariable String travelPackageId,
+            @RequestParam(defaultValue = "ALL_OR_NOTHING") GroupSignUpService.Mode mode,
+            @RequestBody List<SignUpRequest> signUps) {
+
+        return blocking(() -> groupSignUpService.signUp(travelPackageId, mode, signUps))
+                .map(result -> {
+                    for (SignUpOutcome outcome : result.getResults()) {
+                        travelMetrics.recordSignUp(switch (outcome.getStatus()) {
+                            case SIGNED_UP -> TravelMetrics.SIGNUP_SUCCESS;
+                            case SOLD_OUT -> TravelMetrics.SIGNUP_CONFLICT;
+                            case NOT_FOUND -> TravelMetrics.SIGNUP_NOT_FOUND;
+                            default -> TravelMetrics.SIGNUP_REJECTED;
+                        });
+                    }
+                    return new ResponseEntity<Object>(result, HttpStatus.OK);
+                })
+                .onErrorResume(NotFoundException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST)));
+    }
+
+    // API to price activities or a whole itinerary for a passenger or passenger type, nothing is booked
+    @PostMapping("/quote")
+    public Mono<ResponseEntity<Object>> quote(@RequestBody QuoteRequest request) {
+        return blocking(() -> quoteService.quote(request))
+                .map(quote -> quote.getError() != null
+                        ? new ResponseEntity<Object>(quote.getError(), HttpStatus.BAD_REQUEST)
+                        : new ResponseEntity<Object>(quote, HttpStatus.OK));
+    }
+
+    // API to price many quote requests at once, a request that cannot be priced carries its error
+    @PostMapping("/quotes")
+    public Mono<ResponseEntity<List<Quote>>> quotes(@RequestBody List<QuoteRequest> requests) {
+        return blocking(() -> quoteService.quote(requests))
+                .map(quotes -> new ResponseEntity<>(quotes, HttpStatus.OK));
+    }
+
+    // API to read the seats, enrollment and revenue of a package from the availability read model
+    @GetMapping("/availability/{travelPackageId}")
+    public Mono<ResponseEntity<Object>> getAvailability(@PathVariable String travelPackageId) {
+        return blocking(() -> blockingTravelPackageService.getAvailability(travelPackageId))
+                .map(availability -> new ResponseEntity<Object>(availability, HttpStatus.OK))
+                .onErrorResume(NotFoundException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND)));
+    }
+
+    // API to rebuild the availability read model of every package from the stored data
+    @PostMapping("/rebuildAvailability")
+    public Mono<ResponseEntity<Object>> rebuildAvailability() {
+        return blocking(blockingTravelPackageService::rebuildAvailability)
+                .map(rebuilt -> new ResponseEntity<Object>(rebuilt, HttpStatus.OK))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    // API to recompute the per-activity enrollment counters from the passenger data
+    @PostMapping("/rebuildEnrollments")
+    public Mono<ResponseEntity<Object>> rebuildEnrollments() {
+        return blocking(blockingTravelPackageService::rebuildEnrollments)
+                .map(rebuilt -> new ResponseEntity<Object>(rebuilt, HttpStatus.OK))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    // API to report hit, miss and eviction counts of the lookup caches
+    @GetMapping("/cacheStats")
+    public Mono<ResponseEntity<Map<String, CacheStats>>> getCacheStats() {
+        return Mono.fromSupplier(() -> new ResponseEntity<>(cacheStatsService.getCacheStats(), HttpStatus.OK));
+    }
+
+    // API to fetch a TravelPackage by name
+    @GetMapping("/getTravelPackage/{packageName}")
+    public Mono<ResponseEntity<Object>> getTravelPackageByName(@PathVariable String packageName) {
+        return travelPackageService.getTravelPackageByName(packageName)
+                .map(travelPackage -> new ResponseEntity<Object>(travelPackage, HttpStatus.OK))
+                .defaultIfEmpty(new ResponseEntity<>("Travel Package not found", HttpStatus.NOT_FOUND));
+    }
+
+    // API to search packages, destinations and activities by name, partial name or description keywords
+    @GetMapping("/search")
+    public Mono<ResponseEntity<Object>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) SearchResult.Type type,
+            @RequestParam(required = false) Double minCost,
+            @RequestParam(required = false) Double maxCost,
+            @RequestParam(required = false) Integer minSeats,
+            @RequestParam(defaultValue = "" + TravelSearchService.DEFAULT_LIMIT) int limit) {
+        if (q.isBlank()) {
+            return Mono.just(new ResponseEntity<>("Search text cannot be empty", HttpStatus.BAD_REQUEST));
+        }
+        // Searches are answered from the in-memory index, so they stay on the event loop
+        return Mono.fromSupplier(() -> new ResponseEntity<>(travelSearchService.search(q, type, minCost, maxCost, minSeats, limit),
+                HttpStatus.OK));
+    }
+
+    @PostMapping("/createTravelPackage")
+    public Mono<ResponseEntity<String>> createTravelPackage(@RequestBody TravelPackage travelPackage) {
+        return travelPackageService.createTravelPackage(travelPackage.getName(), travelPackage.getPassengerCapacity())
+                .map(created -> new ResponseEntity<>(created.getId(), HttpStatus.CREATED))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT)));
+    }
+
+//    API to get all travel package details, paged when "after" or "limit" is given
+    @GetMapping("/getAllTravelPackages")
+    public Mono<ResponseEntity<Object>> getAllTravelPackage(@RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return travelPackageService.getAllTravelPackages().collectList()
+                    .map(list -> new ResponseEntity<>(list, HttpStatus.OK));
+        }
+
+        int pageSize = limit != null ? limit : TravelPackageService.DEFAULT_PAGE_SIZE;
+        return travelPackageService.getTravelPackagePage(after, pageSize)
+                .map(page -> new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+//    API to stream all travel packages as newline-delimited JSON, one package per line
+    @GetMapping(value = "/getAllTravelPackages", produces = NDJSON)
+    public Flux<TravelPackage> streamAllTravelPackages() {
+        return travelPackageService.getAllTravelPackages();
+    }
+
+    // API to add a destination to a travel package
+    @PostMapping(value = "/addDestination/{travelPackageId}", consumes = "application/json")
+    public Mono<ResponseEntity<Object>> addDestination(@PathVariable String travelPackageId, @RequestBody Destination destination) {
+        return travelPackageService.addDestinationToTravelPackage(travelPackageId, destination)
+                .map(travelPackage -> new ResponseEntity<Object>(travelPackage, HttpStatus.CREATED))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    // API to add passenger details to a travel package
+    @PostMapping("/addPassenger/{travelPackageId}")
+    public Mono<ResponseEntity<Object>> addPassenger(@PathVariable String travelPackageId, @RequestBody Passenger passenger) {
+        return travelPackageService.addPassengerToTravelPackage(travelPackageId, passenger)
+                .map(travelPackage -> new ResponseEntity<Object>(travelPackage, HttpStatus.CREATED))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT)));
+    }
+
+    // API to add an activity to a destination in a travel package
+    @PostMapping("/addActivity/{travelPackageId}/{destinationID}")
+    public Mono<ResponseEntity<Object>> addActivityToDestination(
+            @PathVariable String travelPackageId,
+            @PathVariable String destinationID,
+            @RequestBody Activity activity) {
+        return travelPackageService.addActivityToDestination(travelPackageId, destinationID, activity)
+                .map(added -> new ResponseEntity<Object>(added, HttpStatus.CREATED))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to add activity: " + e.getMessage())));
+    }
+
+    // API to import many travel packages at once, each with its destinations, activities and passengers
+    @PostMapping(value = "/bulk/travelPackages", consumes = "application/json")
+    public Mono<ResponseEntity<BulkImportResult>> bulkImportTravelPackages(@RequestBody List<TravelPackage> travelPackages) {
+        return blocking(() -> bulkImportService.importTravelPackages(travelPackages.iterator()))
+                .map(result -> new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    // Same import streamed as newline-delimited JSON, one travel package per line, read as the import consumes them
+    @PostMapping(value = "/bulk/travelPackages", consumes = NDJSON)
+    public Mono<ResponseEntity<BulkImportResult>> bulkImportTravelPackagesNdjson(@RequestBody Flux<TravelPackage> travelPackages) {
+        return blocking(() -> bulkImportService.importTravelPackages(travelPackages.toIterable().iterator()))
+                .map(result -> new ResponseEntity<>(result, HttpStatus.OK));
+    }
+
+    @PostMapping("/createActivity")
+    public Mono<ResponseEntity<Activity>> createActivity(@RequestBody Activity activity) {
+        return travelPackageService.createActivity(
+                        activity.getName(),
+                        activity.getDescription(),
+                        activity.getCost(),
+                        activity.getCapacity(),
+                        activity.getDestinationName())
+                .map(createdActivity -> new ResponseEntity<>(createdActivity, HttpStatus.CREATED));
+    }
+
+    @PostMapping("/createDestination")
+    public Mono<ResponseEntity<Object>> createDestination(@RequestBody Destination destination) {
+        if (destination.getName() == null || destination.getName().isEmpty()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Destination name is null or empty"));
+        }
+
+        return travelPackageService.createDestination(destination.getName())
+                .map(createdDestination -> new ResponseEntity<>(createdDestination, HttpStatus.CREATED));
+    }
+
+}
@@ -1,38 +1,89 @@
 package com.travel.travelProject.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.travel.travelProject.Exception.NotFoundException;
 import com.travel.travelProject.Exception.TravelException;
 import com.travel.travelProject.model.*;
 import com.travel.travelProject.repository.ActivityRepository;
+import com.travel.travelProject.service.BulkImportService;
+import com.travel.travelProject.service.CacheStatsService;
+import com.travel.travelProject.service.GroupSignUpService;
+import com.travel.travelProject.service.QuoteService;
+import com.travel.travelProject.service.SignUpAdmissionService;
+import com.travel.travelProject.service.TravelMetrics;
 import com.travel.travelProject.service.TravelPackageService;
+import com.travel.travelProject.service.TravelSearchService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/travel")
+@Profile("!reactive")
 @Slf4j
 public class TravelController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private TravelPackageService travelPackageService;
 
     @Autowired
     ActivityRepository activityRepository;
 
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private GroupSignUpService groupSignUpService;
+
+    @Autowired
+    private SignUpAdmissionService signUpAdmissionService;
+
+    @Autowired
+    private TravelSearchService travelSearchService;
+
+    @Autowired
+    private QuoteService quoteService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TravelMetrics travelMetrics;
+
 //    API according to the requirements
 
     // API to print itinerary of the travel package
     @GetMapping("/itinerary/{travelPackageId}")
-    public ResponseEntity<TravelPackage> printItinerary(@PathVariable String travelPackageId) {
-        TravelPackage travelPackage = travelPackageService.getTravelPackageById(travelPackageId);
+    public ResponseEntity<TravelPackageItinerary> printItinerary(
+            @PathVariable String travelPackageId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        PackageVersion current = travelPackageService.getPackageVersion(travelPackageId);
+        if (current != null && current.matches(ifNoneMatch)) {
+            return new ResponseEntity<>(versionHeaders(current), HttpStatus.NOT_MODIFIED);
+        }
+        TravelPackageItinerary itinerary = travelPackageService.getItinerary(travelPackageId);
 
-        if (travelPackage != null) {
-            return new ResponseEntity<>(travelPackage, HttpStatus.OK);
+        if (itinerary != null) {
+            return new ResponseEntity<>(itinerary, versionHeaders(itinerary.packageVersion()), HttpStatus.OK);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -41,9 +92,15 @@ public class TravelController {
 
     // API to print the passenger list of the travel package
     @GetMapping("/passengerList/{travelPackageId}")
-    public ResponseEntity<PassengerListResponse> printPassengerList(@PathVariable String travelPackageId) {
-        List<Passenger> passengers = travelPackageService.getPassengersForTravelPackage(travelPackageId);
+    public ResponseEntity<PassengerListResponse> printPassengerList(
+            @PathVariable String travelPackageId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        PackageVersion current = travelPackageService.getPackageVersion(travelPackageId);
+        if (current != null && current.matches(ifNoneMatch)) {
+            return new ResponseEntity<>(versionHeaders(current), HttpStatus.NOT_MODIFIED);
+        }
         TravelPackage travelPackage = travelPackageService.getTravelPackageWithPassengerDetails(travelPackageId);
+        List<Passenger> passengers = travelPackage.getPassengers();
 
         PassengerListResponse response = new PassengerListResponse(
                 travelPackage.getName(),
@@ -51,14 +108,15 @@ public class TravelController {
                 passengers.size(),
                 passengers);
 
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        return new ResponseEntity<>(response, versionHeaders(travelPackage.packageVersion()), HttpStatus.OK);
     }
 
 
     // API to print the details of an individual passenger
     @GetMapping("/passengerDetails/{passengerId}")
-    public Passenger printPassengerDetails(@PathVariable String passengerId) {
-        return travelPackageService.getPassengerById(passengerId);
+    public PassengerDetails printPassengerDetails(@PathVariable String passengerId) {
+        Passenger passenger = travelPackageService.getPassengerById(passengerId);
+        return passenger != null ? travelPackageService.getPassengerDetails(passenger) : null;
     }
 
 
@@ -66,8 +124,10 @@ public class TravelController {
     @GetMapping("/availableActivities/{travelPackageId}")
     public ResponseEntity<Object> printAvailableActivities(@PathVariable String travelPackageId) {
         try {
-            List<Activity> availableActivities = travelPackageService.getAvailableActivities(travelPackageId);
+            List<AvailableActivity> availableActivities = travelPackageService.getAvailableActivities(travelPackageId);
             return new ResponseEntity<>(availableActivities, HttpStatus.OK);
+        } catch (NotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -85,13 +145,49 @@ public class TravelController {
             @PathVariable String activityID) {
 
         try {
-            HttpStatus status = travelPackageService.signUpForActivity(travelPackageId, passengerId, activityID);
-
-            if (status == HttpStatus.CONFLICT) {
+            HttpStatus status = signUpAdmissionService.signUp(travelPackageId, passengerId, activityID);
+
+            if (status == HttpStatus.TOO_MANY_REQUESTS) {
+                travelMetrics.recordSignUp(TravelMetrics.SIGNUP_QUEUE_FULL);
+                return new ResponseEntity<>("Too many sign-ups waiting for this activity, try again shortly", status);
+            } else if (status == HttpStatus.SERVICE_UNAVAILABLE) {
+                travelMetrics.recordSignUp(TravelMetrics.SIGNUP_TIMEOUT);
+                return new ResponseEntity<>("Sign-up timed out waiting for this activity, check the passenger before retrying", status);
+            } else if (status == HttpStatus.CONFLICT) {
+                travelMetrics.recordSignUp(TravelMetrics.SIGNUP_CONFLICT);
                 return new ResponseEntity<>("Capacity is full for this activity", status);
             } else {
+                travelMetrics.recordSignUp(TravelMetrics.SIGNUP_SUCCESS);
                 return new ResponseEntity<>("Signup successful", status);
             }
+        } catch (NotFoundException e) {
+            travelMetrics.recordSignUp(TravelMetrics.SIGNUP_NOT_FOUND);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (RuntimeException e) {
+            travelMetrics.recordSignUp(TravelMetrics.SIGNUP_REJECTED);
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+
+    // API to sign up a group of passengers of one package for activities in one request
+    @PostMapping("/signupActivities/{travelPackageId}")
+    public ResponseEntity<Object> signUpGroupForActivities(
+            @PathVariable String travelPackageId,
+            @RequestParam(defaultValue = "ALL_OR_NOTHING") GroupSignUpService.Mode mode,
+            @RequestBody List<SignUpRequest> signUps) {
+
+        try {
+            GroupSignUpResult result = groupSignUpService.signUp(travelPackageId, mode, signUps);
+            for (SignUpOutcome outcome : result.getResults()) {
+                travelMetrics.recordSignUp(switch (outcome.getStatus()) {
+                    case SIGNED_UP -> TravelMetrics.SIGNUP_SUCCESS;
+                    case SOLD_OUT -> TravelMetrics.SIGNUP_CONFLICT;
+                    case NOT_FOUND -> TravelMetrics.SIGNUP_NOT_FOUND;
+                    default -> TravelMetrics.SIGNUP_REJECTED;
+                });
+            }
+            return new ResponseEntity<>(result, HttpStatus.OK);
         } catch (NotFoundException e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
         } catch (RuntimeException e) {
@@ -100,14 +196,80 @@ public class TravelController {
     }
 
 
+    // API to price activities or a whole itinerary for a passenger or passenger type, nothing is booked
+    @PostMapping("/quote")
+    public ResponseEntity<Object> quote(@RequestBody QuoteRequest request) {
+        Quote quote = quoteService.quote(request);
+        if (quote.getError() != null) {
+            return new ResponseEntity<>(quote.getError(), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(quote, HttpStatus.OK);
+    }
+
+
+    // API to price many quote requests at once, a request that cannot be priced carries its error
+    @PostMapping("/quotes")
+    public ResponseEntity<List<Quote>> quotes(@RequestBody List<QuoteRequest> requests) {
+        return new ResponseEntity<>(quoteService.quote(requests), HttpStatus.OK);
+    }
+
+
+    // API to read the seats, enrollment and revenue of a package from the availability read model
+    @GetMapping("/availability/{travelPackageId}")
+    public ResponseEntity<Object> getAvailability(@PathVariable String travelPackageId) {
+        try {
+            return new ResponseEntity<>(travelPackageService.getAvailability(travelPackageId), HttpStatus.OK);
+        } catch (NotFoundException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+
+    // API to rebuild the availability read model of every package from the stored data
+    @PostMapping("/rebuildAvailability")
+    public ResponseEntity<Object> rebuildAvailability() {
+        try {
+            int rebuilt = travelPackageService.rebuildAvailability();
+            return new ResponseEntity<>(rebuilt, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    // API to recompute the per-activity enrollment counters from the passenger data
+    @PostMapping("/rebuildEnrollments")
+    public ResponseEntity<Object> rebuildEnrollments() {
+        try {
+            int rebuilt = travelPackageService.rebuildEnrollments();
+            return new ResponseEntity<>(rebuilt, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+    // API to report hit, miss and eviction counts of the lookup caches
+    @GetMapping("/cacheStats")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        return new ResponseEntity<>(cacheStatsService.getCacheStats(), HttpStatus.OK);
+    }
+
+
     // API to fetch a TravelPackage by name
     @GetMapping("/getTravelPackage/{packageName}")
-    public ResponseEntity<?> getTravelPackageByName(@PathVariable String packageName) {
+    public ResponseEntity<?> getTravelPackageByName(
+            @PathVariable String packageName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            PackageVersion current = travelPackageService.getPackageVersionByName(packageName);
+            if (current != null && current.matches(ifNoneMatch)) {
+                return new ResponseEntity<>(versionHeaders(current), HttpStatus.NOT_MODIFIED);
+            }
             Optional<TravelPackage> travelPackage = travelPackageService.getTravelPackageByName(packageName);
 
             if (travelPackage.isPresent()) {
-                return new ResponseEntity<>(travelPackage.get(), HttpStatus.OK);
+                return new ResponseEntity<>(travelPackage.get(), versionHeaders(travelPackage.get().packageVersion()), HttpStatus.OK);
             } else {
                 return new ResponseEntity<>("Travel Package not found", HttpStatus.NOT_FOUND);
             }
@@ -116,6 +278,22 @@ public class TravelController {
         }
     }
 
+    // API to search packages, destinations and activities by name, partial name or description keywords
+    @GetMapping("/search")
+    public ResponseEntity<Object> search(
+            @RequestParam String q,
+            @RequestParam(required = false) SearchResult.Type type,
+            @RequestParam(required = false) Double minCost,
+            @RequestParam(required = false) Double maxCost,
+            @RequestParam(required = false) Integer minSeats,
+            @RequestParam(defaultValue = "" + TravelSearchService.DEFAULT_LIMIT) int limit) {
+        if (q.isBlank()) {
+            return new ResponseEntity<>("Search text cannot be empty", HttpStatus.BAD_REQUEST);
+        }
+        List<SearchResult> results = travelSearchService.search(q, type, minCost, maxCost, minSeats, limit);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
     @PostMapping("/createTravelPackage")
     public ResponseEntity<String> createTravelPackage(@RequestBody TravelPackage travelPackage) {
         try {
@@ -126,11 +304,34 @@ public class TravelController {
         }
     }
 
-//    API to get all travel package details
+//    API to get all travel package details, paged when "after" or "limit" is given
     @GetMapping("/getAllTravelPackages")
-    public ResponseEntity<Object> getAllTravelPackage(){
-        List<TravelPackage> list= travelPackageService.getAllTravelPackages();
-        return new ResponseEntity<>(list,HttpStatus.OK);
+    public ResponseEntity<Object> getAllTravelPackage(@RequestParam(required = false) String after,
+                                                      @RequestParam(required = false) Integer limit){
+        if (after == null && limit == null) {
+            List<TravelPackage> list= travelPackageService.getAllTravelPackages();
+            return new ResponseEntity<>(list,HttpStatus.OK);
+        }
+
+        int pageSize = limit != null ? limit : TravelPackageService.DEFAULT_PAGE_SIZE;
+        TravelPackagePage page = travelPackageService.getTravelPackagePage(after, pageSize);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+//    API to stream all travel packages as newline-delimited JSON, one package per line
+    @GetMapping(value = "/getAllTravelPackages", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllTravelPackages() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<TravelPackage> travelPackages = travelPackageService.streamAllTravelPackages()) {
+                Iterator<TravelPackage> iterator = travelPackages.iterator();
+                while (iterator.hasNext()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    outputStream.write('\n');
+                    outputStream.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
 
@@ -163,14 +364,32 @@ public class TravelController {
             @PathVariable String destinationID,
             @RequestBody Activity activity) {
         try {
-            TravelPackage tp= travelPackageService.addActivityToDestination(travelPackageId, destinationID, activity);
-            return new ResponseEntity<>(tp, HttpStatus.CREATED);
+            Activity added = travelPackageService.addActivityToDestination(travelPackageId, destinationID, activity);
+            return new ResponseEntity<>(added, HttpStatus.CREATED);
         } catch (RuntimeException e) {
             // Handle the exception, you might want to log it or return an error response
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to add activity: " + e.getMessage());
         }
     }
 
+    // API to import many travel packages at once, each with its destinations, activities and passengers
+    @PostMapping(value = "/bulk/travelPackages", consumes = "application/json")
+    public ResponseEntity<BulkImportResult> bulkImportTravelPackages(@RequestBody List<TravelPackage> travelPackages) {
+        BulkImportResult result = bulkImportService.importTravelPackages(travelPackages.iterator());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    // Same import streamed as newline-delimited JSON, one travel package per line
+    @PostMapping(value = "/bulk/travelPackages", consumes = NDJSON)
+    public ResponseEntity<Object> bulkImportTravelPackagesNdjson(HttpServletRequest request) {
+        try {
+            BulkImportResult result = bulkImportService.importNdjson(request.getReader());
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IOException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PostMapping("/createActivity")
     public ResponseEntity<Activity> createActivity(@RequestBody Activity activity) {
         Activity createdActivity = travelPackageService.createActivity(
@@ -193,4 +412,15 @@ public class TravelController {
         return new ResponseEntity<>(createdDestination, HttpStatus.CREATED);
     }
 
+    // The 200 responses are tagged with the version of what was actually served, which may come from a cache,
+    // so a stale cached copy is never given the tag of a newer version. The body depends on the Accept header.
+    private static HttpHeaders versionHeaders(PackageVersion version) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(version.eTag());
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (version.getLastModified() != null) {
+            headers.setLastModified(version.getLastModified());
+        }
+        return headers;
+    }
 }
@@ -0,0 +1,34 @@
+package com.travel.travelProject.event;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.TravelPackage;
+
+import java.time.Instant;
+import java.util.List;
+
+// Published after a write to a travel package has been stored, read models update themselves from these
+public sealed interface TravelPackageEvent {
+
+    Instant occurredAt();
+
+    record Created(String travelPackageId, String name, int passengerCapacity, Instant occurredAt) implements TravelPackageEvent {
+    }
+
+    // Whole package trees written at once, they carry everything a read model needs
+    record Imported(List<TravelPackage> travelPackages, Instant occurredAt) implements TravelPackageEvent {
+    }
+
+    // A change that is not worth describing incrementally (e.g. a destination with its activities), read models reload the package
+    record Restructured(String travelPackageId, Instant occurredAt) implements TravelPackageEvent {
+    }
+
+    record PassengerAdded(String travelPackageId, String passengerId, Instant occurredAt) implements TravelPackageEvent {
+    }
+
+    record ActivityAdded(String travelPackageId, Activity activity, Instant occurredAt) implements TravelPackageEvent {
+    }
+
+    // One or more seats of an activity sold, revenue is the total paid for them
+    record SignedUp(String travelPackageId, String activityId, int seats, double revenue, Instant occurredAt) implements TravelPackageEvent {
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -14,6 +15,9 @@ import java.util.Set;
 
 @Data
 @Document(collection = "activities")
+// Activity names are unique per destination, activities created outside a destination are not indexed
+@CompoundIndex(name = "destinationId_name", def = "{'destinationId': 1, 'name': 1}", unique = true,
+        partialFilter = "{'destinationId': {'$exists': true}}")
 @NoArgsConstructor
 @AllArgsConstructor
 public class Activity {
@@ -24,6 +28,7 @@ public class Activity {
     private double cost;
     private int capacity;
     private String destinationName;
+    private String destinationId;
 
     public Activity(String name, String description, double cost, int capacity, String destinations) {
         this.name = name;
@@ -43,12 +48,13 @@ public class Activity {
                 Objects.equals(id, activity.id) &&
                 Objects.equals(name, activity.name) &&
                 Objects.equals(description, activity.description) &&
-                Objects.equals(destinationName, activity.destinationName);
+                Objects.equals(destinationName, activity.destinationName) &&
+                Objects.equals(destinationId, activity.destinationId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description, cost, capacity, destinationName);
+        return Objects.hash(id, name, description, cost, capacity, destinationName, destinationId);
     }
 
     public void setDestinations(String destinations) {
@@ -0,0 +1,17 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Seats and takings of one activity inside a PackageAvailability
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityAvailability {
+    private Activity activity;
+    // Passengers of this package signed up for the activity
+    private int enrolled;
+    private int seatsLeft;
+    private double revenue;
+}
@@ -0,0 +1,26 @@
+package com.travel.travelProject.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+// A passenger's sign-up as stored on the passenger: the activity id and the price actually charged
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityBooking {
+    @Field(targetType = FieldType.OBJECT_ID)
+    private String activityId;
+    private double pricePaid;
+    // Set by a group sign-up on the bookings it pushes, so rolling it back pulls only those and not a concurrent booking
+    @JsonIgnore
+    private String signUpId;
+
+    public ActivityBooking(String activityId, double pricePaid) {
+        this.activityId = activityId;
+        this.pricePaid = pricePaid;
+    }
+}
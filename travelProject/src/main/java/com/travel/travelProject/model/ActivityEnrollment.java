@@ -0,0 +1,20 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Seat counter for one activity, keyed by the activity id
+@Data
+@Document(collection = "activityEnrollments")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityEnrollment {
+    @Id
+    private String activityId;
+    private int capacity;
+    private int enrolled;
+    private int seatsRemaining;
+}
@@ -0,0 +1,16 @@
+package com.travel.travelProject.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Activity as listed by /availableActivities, with the seats still open
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableActivity {
+    @JsonUnwrapped
+    private Activity activity;
+    private int availableSpaces;
+}
@@ -0,0 +1,15 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Why one record of a bulk import was rejected, record is its 1-based position in the request
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportError {
+    private int record;
+    private String name;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+    private int received;
+    private int imported;
+    private int failed;
+    private long documentsWritten;
+    private long elapsedMillis;
+    private double recordsPerSecond;
+    private List<BulkImportError> errors;
+}
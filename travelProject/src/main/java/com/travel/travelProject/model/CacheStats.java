@@ -0,0 +1,16 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private double hitRate;
+}
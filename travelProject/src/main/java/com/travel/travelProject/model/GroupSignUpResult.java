@@ -0,0 +1,18 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Returned by /signupActivities, one outcome per requested pair in request order
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupSignUpResult {
+    private String mode;
+    private int requested;
+    private int signedUp;
+    private List<SignUpOutcome> results;
+}
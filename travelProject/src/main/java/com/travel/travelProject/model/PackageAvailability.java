@@ -0,0 +1,46 @@
+package com.travel.travelProject.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Materialized availability of one travel package, kept up to date from TravelPackageEvents so that the read
+// endpoints are served from this single document
+@Data
+@Document(collection = "packageAvailability")
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackageAvailability {
+    @Id
+    private String travelPackageId;
+    private String name;
+    private int passengerCapacity;
+    private int enrolledPassengers;
+    private int remainingCapacity;
+    private double revenue;
+    // Keyed by activity id, in itinerary order
+    private Map<String, ActivityAvailability> activities;
+    // When the last applied event happened
+    private Instant updatedAt;
+
+    @JsonIgnore
+    public List<AvailableActivity> getAvailableActivities() {
+        List<AvailableActivity> availableActivities = new ArrayList<>();
+        if (activities != null) {
+            for (ActivityAvailability availability : activities.values()) {
+                if (availability.getSeatsLeft() > 0) {
+                    availableActivities.add(new AvailableActivity(availability.getActivity(), availability.getSeatsLeft()));
+                }
+            }
+        }
+        return availableActivities;
+    }
+}
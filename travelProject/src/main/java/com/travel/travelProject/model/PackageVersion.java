@@ -0,0 +1,46 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Version stamp of a travel package, read on its own to answer conditional GETs without loading the package
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackageVersion {
+    private String id;
+    private long version;
+    private Instant lastModified;
+
+    // The id is part of the tag, so a package recreated under the same name never matches an old one.
+    // Weak, since the same version is served as JSON, Smile or CBOR and possibly gzipped, and Tomcat only
+    // compresses responses that carry a weak ETag.
+    public String eTag() {
+        return "W/" + opaqueTag();
+    }
+
+    // Weak comparison, as If-None-Match requires, a wildcard matches any existing package
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String eTag = opaqueTag();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String opaqueTag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+}
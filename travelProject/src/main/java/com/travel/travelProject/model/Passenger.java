@@ -1,26 +1,31 @@
 package com.travel.travelProject.model;
 
 import com.travel.travelProject.Exception.TravelException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
 import java.util.List;
 @Data
 @Document(collection = "passengers")
+@CompoundIndex(name = "signedUpActivities_activityId", def = "{'signedUpActivities.activityId': 1}")
 @NoArgsConstructor
 @AllArgsConstructor
 public class Passenger {
     @Id
     private String id;
     private String name;
+    @Indexed
     private String passengerNumber;
     private PassengerType type;
     private double balance;
-    private List<Activity> signedUpActivities;
+    private List<ActivityBooking> signedUpActivities;
 
     public Passenger(String name, String passengerNumber, PassengerType type, double balance) {
         this.name = name;
@@ -30,39 +35,29 @@ public class Passenger {
         this.signedUpActivities = new ArrayList<>();
     }
 
-    // Method to add signed-up activity
-    public void addSignedUpActivity(Activity activity) {
-        double activityCost = activity.getCost();
-
-        switch (type) {
-            case STANDARD:
-                if (balance >= activityCost) {
-                    balance -= activityCost;
-                } else {
-                    throw new TravelException("Insufficient balance for the standard passenger");
-                }
-                break;
-
-            case GOLD:
-                // Calculate the discounted price
-
-                double discountAmount = activityCost * (10 / 100.0);
-                double discountedCost = activityCost - discountAmount;
-                if (balance >= discountedCost) {
-                    balance -= discountedCost;
-                } else {
-                    throw new TravelException("Insufficient balance for the gold passenger");
-                }
-                break;
+    // Signed-up activities, empty for passengers stored without any
+    @JsonIgnore
+    public List<ActivityBooking> getBookings() {
+        return signedUpActivities != null ? signedUpActivities : List.of();
+    }
 
-            case PREMIUM:
-                // Premium passengers sign up for activities for free
-                break;
+    @JsonIgnore
+    public List<String> getBookedActivityIds() {
+        return getBookings().stream().map(ActivityBooking::getActivityId).toList();
+    }
 
-            default:
-                throw new TravelException("Invalid passenger type");
+    // Method to add signed-up activity, only the activity id and the price charged are kept
+    public void addSignedUpActivity(Activity activity) {
+        if (type == null) {
+            throw new TravelException("Invalid passenger type");
+        }
+        double price = type.priceOf(activity.getCost());
+        // Premium passengers sign up for activities for free, whatever their balance
+        if (price > 0 && balance < price) {
+            throw new TravelException("Insufficient balance for the " + type.name().toLowerCase() + " passenger");
         }
-        signedUpActivities.add(activity);
+        balance -= price;
+        signedUpActivities.add(new ActivityBooking(activity.getId(), price));
     }
 
 
@@ -70,6 +65,15 @@ public class Passenger {
 public enum PassengerType {
         STANDARD,
         GOLD,
-        PREMIUM
+        PREMIUM;
+
+        // Price this type pays for an activity: gold passengers get 10% off, premium passengers sign up for free
+        public double priceOf(double activityCost) {
+            return switch (this) {
+                case STANDARD -> activityCost;
+                case GOLD -> activityCost - activityCost * (10 / 100.0);
+                case PREMIUM -> 0;
+            };
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Passenger as shown by /passengerDetails, with the signed-up activities resolved from their ids
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PassengerDetails {
+    private String id;
+    private String name;
+    private String passengerNumber;
+    private Passenger.PassengerType type;
+    private double balance;
+    private List<SignedUpActivity> signedUpActivities;
+
+    // Bookings whose activity no longer exists are left out
+    public static PassengerDetails of(Passenger passenger, Map<String, Activity> activitiesById) {
+        List<SignedUpActivity> signedUpActivities = new ArrayList<>();
+        for (ActivityBooking booking : passenger.getBookings()) {
+            Activity activity = activitiesById.get(booking.getActivityId());
+            if (activity != null) {
+                signedUpActivities.add(new SignedUpActivity(activity, booking.getPricePaid()));
+            }
+        }
+        return new PassengerDetails(passenger.getId(), passenger.getName(), passenger.getPassengerNumber(),
+                passenger.getType(), passenger.getBalance(), signedUpActivities);
+    }
+}
@@ -0,0 +1,27 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Price of a set of activities for one passenger or passenger type. Nothing is reserved or charged.
+// balance and affordable are only set when quoting for a passenger, error is set instead of lines when the
+// request could not be priced.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Quote {
+    private String passengerId;
+    private Passenger.PassengerType type;
+    private List<QuoteLine> lines;
+    private double total;
+    private Double balance;
+    private Boolean affordable;
+    private String error;
+
+    public static Quote failed(QuoteRequest request, String error) {
+        return new Quote(request.getPassengerId(), request.getType(), List.of(), 0, null, null, error);
+    }
+}
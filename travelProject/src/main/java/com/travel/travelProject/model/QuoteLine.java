@@ -0,0 +1,15 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteLine {
+    private String activityId;
+    private String activityName;
+    private double cost;
+    private double price;
+}
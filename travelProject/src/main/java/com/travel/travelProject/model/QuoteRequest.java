@@ -0,0 +1,19 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// What to price: the listed activities, or the whole itinerary of the package when none are listed.
+// Priced for the passenger's own type when a passenger is given, otherwise for the given type.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteRequest {
+    private String passengerId;
+    private Passenger.PassengerType type;
+    private String travelPackageId;
+    private List<String> activityIds;
+}
@@ -0,0 +1,28 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One hit of /search, cost and seatsLeft are only set for activities
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResult {
+
+    public enum Type {
+        PACKAGE,
+        DESTINATION,
+        ACTIVITY
+    }
+
+    private Type type;
+    private String id;
+    private String name;
+    private String description;
+    private String travelPackageId;
+    private String destinationName;
+    private Double cost;
+    private Integer seatsLeft;
+    private float score;
+}
@@ -0,0 +1,29 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Result of one pair of a group sign-up
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignUpOutcome {
+
+    public enum Status {
+        SIGNED_UP,
+        SOLD_OUT,
+        INSUFFICIENT_BALANCE,
+        ALREADY_SIGNED_UP,
+        NOT_FOUND,
+        // Passenger stored without a type, so no price can be worked out
+        INVALID_PASSENGER,
+        // All-or-nothing group rejected because of another pair
+        NOT_ATTEMPTED
+    }
+
+    private String passengerId;
+    private String activityId;
+    private Status status;
+    private double pricePaid;
+}
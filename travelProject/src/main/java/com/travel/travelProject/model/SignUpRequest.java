@@ -0,0 +1,14 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One (passenger, activity) pair of a group sign-up
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignUpRequest {
+    private String passengerId;
+    private String activityId;
+}
@@ -0,0 +1,16 @@
+package com.travel.travelProject.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Activity as listed in the passenger details, with the price the passenger paid for it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignedUpActivity {
+    @JsonUnwrapped
+    private Activity activity;
+    private double pricePaid;
+}
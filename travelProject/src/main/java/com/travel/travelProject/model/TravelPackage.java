@@ -4,9 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,11 +19,15 @@ import java.util.List;
 public class TravelPackage {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String name;
     private int passengerCapacity;
     private List<Destination> itinerary;
     @DBRef
     private List<Passenger> passengers;
+    // Bumped by every write to the package or to its passengers' bookings, the GET views build their ETag from it
+    private long version;
+    private Instant lastModified;
 
 
     public TravelPackage(String name, int passengerCapacity) {
@@ -42,4 +48,13 @@ public class TravelPackage {
         passengers.add(passenger);
     }
 
+    public void touch() {
+        version++;
+        lastModified = Instant.now();
+    }
+
+    public PackageVersion packageVersion() {
+        return new PackageVersion(id, version, lastModified);
+    }
+
 }
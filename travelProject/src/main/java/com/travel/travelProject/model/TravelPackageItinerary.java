@@ -0,0 +1,26 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+// Itinerary view of a travel package, carries the passenger count instead of the passengers
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TravelPackageItinerary {
+    private String id;
+    private String name;
+    private int passengerCapacity;
+    private List<Destination> itinerary;
+    private int passengerCount;
+    private long version;
+    private Instant lastModified;
+
+    public PackageVersion packageVersion() {
+        return new PackageVersion(id, version, lastModified);
+    }
+}
@@ -0,0 +1,16 @@
+package com.travel.travelProject.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One page of travel packages, nextCursor is passed back as "after" to fetch the next page and is null on the last one
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TravelPackagePage {
+    private List<TravelPackage> travelPackages;
+    private String nextCursor;
+}
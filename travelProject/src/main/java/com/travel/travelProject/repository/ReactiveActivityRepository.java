@@ -0,0 +1,8 @@
+package com.travel.travelProject.repository;
+
+import com.travel.travelProject.model.Activity;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactiveActivityRepository extends ReactiveMongoRepository<Activity, String> {
+
+}
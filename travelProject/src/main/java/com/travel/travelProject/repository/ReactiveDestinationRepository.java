@@ -0,0 +1,9 @@
+package com.travel.travelProject.repository;
+
+import com.travel.travelProject.model.Destination;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+// Reactive reads cannot resolve the activity references, so destinations are only written through this repository
+public interface ReactiveDestinationRepository extends ReactiveMongoRepository<Destination, String> {
+
+}
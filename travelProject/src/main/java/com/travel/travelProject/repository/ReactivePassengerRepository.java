@@ -0,0 +1,8 @@
+package com.travel.travelProject.repository;
+
+import com.travel.travelProject.model.Passenger;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReactivePassengerRepository extends ReactiveMongoRepository<Passenger, String> {
+
+}
@@ -0,0 +1,10 @@
+package com.travel.travelProject.repository;
+
+import com.travel.travelProject.model.TravelPackage;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+// Reactive reads cannot resolve the passenger references, so packages are only written and checked through this repository
+public interface ReactiveTravelPackageRepository extends ReactiveMongoRepository<TravelPackage, String> {
+    Mono<Boolean> existsByName(String name);
+}
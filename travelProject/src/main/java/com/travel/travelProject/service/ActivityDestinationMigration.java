@@ -0,0 +1,100 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.MongoException;
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.Destination;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Sets destinationId on activities stored before it existed, taken from the destination that references them.
+// The unique destinationId_name index only covers activities with a destinationId, so until then a second activity
+// of the same name could be added to their destination. Only activities still missing the field are written.
+@Slf4j
+@Service
+public class ActivityDestinationMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${travel.migrations.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public ActivityDestinationMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int migrated = migrate();
+            if (migrated > 0) {
+                log.info("Set the destination of {} activities", migrated);
+            }
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not set the destination of activities: {}", e.getMessage());
+        }
+    }
+
+    public int migrate() {
+        Query destinations = query(where("activities.0").exists(true));
+        destinations.fields().include("activities");
+        String collection = mongoTemplate.getCollectionName(Activity.class);
+
+        int migrated = 0;
+        int pending = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        try (Stream<Document> stream = mongoTemplate.stream(destinations, Document.class, mongoTemplate.getCollectionName(Destination.class))) {
+            for (Document destination : (Iterable<Document>) stream::iterator) {
+                String destinationId = destination.get("_id").toString();
+                for (String activityId : TravelDocuments.referencedIds(destination.getList("activities", Object.class, List.of()))) {
+                    // Guarded on the field still missing, an activity referenced by two destinations keeps the first
+                    bulk.updateOne(query(where("_id").is(TravelDocuments.asObjectId(activityId)).and("destinationId").exists(false)),
+                            new Update().set("destinationId", destinationId));
+                    if (++pending == BATCH_SIZE) {
+                        migrated += execute(bulk);
+                        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                        pending = 0;
+                    }
+                }
+            }
+        }
+        if (pending > 0) {
+            migrated += execute(bulk);
+        }
+        return migrated;
+    }
+
+    // Legacy duplicates in one destination can't all be given its id: the first one is, the others are reported and
+    // left as they are to be renamed or removed by hand
+    private static int execute(BulkOperations bulk) {
+        try {
+            return bulk.execute().getModifiedCount();
+        } catch (BulkOperationException e) {
+            log.warn("{} activities share a name with another activity of their destination and were left without a destinationId",
+                    e.getErrors().size());
+            return e.getResult().getModifiedCount();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.ActivityEnrollment;
+import com.travel.travelProject.model.Passenger;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Service
+public class ActivitySeatService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int PARTIAL_RESERVE_ATTEMPTS = 3;
+
+    public enum Reservation {
+        RESERVED,
+        SOLD_OUT
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public ActivitySeatService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Takes one seat with a single guarded update, so two concurrent requests can never both get the last seat.
+    // The counter is seeded from enrolledCount the first time an activity is reserved.
+    public Reservation reserveSeat(Activity activity, IntSupplier enrolledCount) {
+        if (takeSeat(activity.getId())) {
+            return Reservation.RESERVED;
+        }
+        if (mongoTemplate.exists(byActivityId(activity.getId()), ActivityEnrollment.class)) {
+            return Reservation.SOLD_OUT;
+        }
+
+        seed(activity, enrolledCount.getAsInt());
+        return takeSeat(activity.getId()) ? Reservation.RESERVED : Reservation.SOLD_OUT;
+    }
+
+    // Takes several seats of one activity in a single guarded update. With partial set, takes whatever is left
+    // when fewer seats remain. Returns the number of seats taken.
+    public int reserveSeats(String activityId, int seats, boolean partial) {
+        if (takeSeats(activityId, seats)) {
+            return seats;
+        }
+        if (!partial) {
+            return 0;
+        }
+        for (int attempt = 0; attempt < PARTIAL_RESERVE_ATTEMPTS; attempt++) {
+            ActivityEnrollment enrollment = mongoTemplate.findById(activityId, ActivityEnrollment.class);
+            int seatsLeft = enrollment != null ? Math.min(enrollment.getSeatsRemaining(), seats) : 0;
+            if (seatsLeft <= 0) {
+                return 0;
+            }
+            if (takeSeats(activityId, seatsLeft)) {
+                return seatsLeft;
+            }
+        }
+        return 0;
+    }
+
+    // Gives a seat back, e.g. when the passenger could not be charged after the seat was taken
+    public void releaseSeat(String activityId) {
+        releaseSeats(activityId, 1);
+    }
+
+    public void releaseSeats(String activityId, int seats) {
+        mongoTemplate.updateFirst(releaseSeatsQuery(activityId, seats), releaseSeatsUpdate(seats), ActivityEnrollment.class);
+    }
+
+    // Seeds the counters still missing for these activities, counting their current sign-ups in one aggregation
+    public void ensureTracked(Collection<Activity> activities) {
+        Map<String, Activity> untracked = new HashMap<>();
+        for (Activity activity : activities) {
+            untracked.put(activity.getId(), activity);
+        }
+        for (ActivityEnrollment enrollment : mongoTemplate.find(query(where("_id").in(untracked.keySet())), ActivityEnrollment.class)) {
+            untracked.remove(enrollment.getActivityId());
+        }
+        if (untracked.isEmpty()) {
+            return;
+        }
+
+        List<Object> untrackedIds = untracked.keySet().stream().map(TravelDocuments::asObjectId).toList();
+        Aggregation aggregation = newAggregation(
+                match(where("signedUpActivities.activityId").in(untrackedIds)),
+                unwind("signedUpActivities"),
+                match(where("signedUpActivities.activityId").in(untrackedIds)),
+                group("signedUpActivities.activityId").count().as("enrolled"));
+
+        Map<String, Integer> enrolledByActivity = new HashMap<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, "passengers", Document.class)) {
+            enrolledByActivity.put(String.valueOf(result.get("_id")), result.getInteger("enrolled"));
+        }
+        for (Activity activity : untracked.values()) {
+            seed(activity, enrolledByActivity.getOrDefault(activity.getId(), 0));
+        }
+    }
+
+    // Registers a counter for a newly created activity, nobody is enrolled yet
+    public void track(Activity activity) {
+        seed(activity, 0);
+    }
+
+    // Seats left per activity id, read from the counters in one query. Activities without a counter have had no sign-ups.
+    public Map<String, Integer> availableSpaces(Collection<Activity> activities) {
+        Map<String, Integer> availableSpaces = new HashMap<>();
+        for (Activity activity : activities) {
+            availableSpaces.put(activity.getId(), activity.getCapacity());
+        }
+
+        Query query = query(where("_id").in(availableSpaces.keySet()));
+        for (ActivityEnrollment enrollment : mongoTemplate.find(query, ActivityEnrollment.class)) {
+            availableSpaces.put(enrollment.getActivityId(), enrollment.getSeatsRemaining());
+        }
+        return availableSpaces;
+    }
+
+    // Recomputes every counter from the passengers' signed-up activities, e.g. after a data import or a bad deploy.
+    // Sign-ups that land while the rebuild runs may be miscounted, so run it when sign-ups are quiet.
+    public int rebuildEnrollments() {
+        Aggregation aggregation = newAggregation(
+                unwind("signedUpActivities"),
+                group("signedUpActivities.activityId").count().as("enrolled"));
+
+        Map<String, Integer> enrolledByActivity = new HashMap<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, "passengers", Document.class)) {
+            enrolledByActivity.put(String.valueOf(result.get("_id")), result.getInteger("enrolled"));
+        }
+
+        int rebuilt = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityEnrollment.class);
+        try (Stream<Activity> activities = mongoTemplate.stream(new Query(), Activity.class)) {
+            for (Activity activity : (Iterable<Activity>) activities::iterator) {
+                int enrolled = enrolledByActivity.getOrDefault(activity.getId(), 0);
+                bulk.upsert(byActivityId(activity.getId()), new Update()
+                        .set("capacity", activity.getCapacity())
+                        .set("enrolled", enrolled)
+                        .set("seatsRemaining", Math.max(activity.getCapacity() - enrolled, 0)));
+                if (++rebuilt % REBUILD_BATCH_SIZE == 0) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ActivityEnrollment.class);
+                }
+            }
+        }
+        if (rebuilt % REBUILD_BATCH_SIZE != 0) {
+            bulk.execute();
+        }
+        return rebuilt;
+    }
+
+    // Number of passengers signed up for each activity id, counted from in-memory passenger data
+    public static Map<String, Integer> countEnrollments(Collection<Passenger> passengers) {
+        Map<String, Integer> enrolledByActivity = new HashMap<>();
+        for (Passenger passenger : passengers) {
+            for (String activityId : passenger.getBookedActivityIds()) {
+                enrolledByActivity.merge(activityId, 1, Integer::sum);
+            }
+        }
+        return enrolledByActivity;
+    }
+
+    private boolean takeSeat(String activityId) {
+        return takeSeats(activityId, 1);
+    }
+
+    private boolean takeSeats(String activityId, int seats) {
+        return mongoTemplate.updateFirst(takeSeatsQuery(activityId, seats), takeSeatsUpdate(seats), ActivityEnrollment.class)
+                .getModifiedCount() == 1;
+    }
+
+    // The guarded counter writes, ReactiveTravelPackageService issues the same ones through the reactive driver
+    static Query takeSeatsQuery(String activityId, int seats) {
+        return query(where("_id").is(activityId).and("seatsRemaining").gte(seats));
+    }
+
+    static Update takeSeatsUpdate(int seats) {
+        return new Update().inc("seatsRemaining", -seats).inc("enrolled", seats);
+    }
+
+    static Query releaseSeatsQuery(String activityId, int seats) {
+        return query(where("_id").is(activityId).and("enrolled").gte(seats));
+    }
+
+    static Update releaseSeatsUpdate(int seats) {
+        return new Update().inc("seatsRemaining", seats).inc("enrolled", -seats);
+    }
+
+    static ActivityEnrollment enrollment(Activity activity, int enrolled) {
+        return new ActivityEnrollment(activity.getId(), activity.getCapacity(), enrolled, Math.max(activity.getCapacity() - enrolled, 0));
+    }
+
+    private void seed(Activity activity, int enrolled) {
+        try {
+            mongoTemplate.insert(enrollment(activity, enrolled));
+        } catch (DuplicateKeyException e) {
+            // Another request seeded the counter first, keep theirs
+        }
+    }
+
+    private static Query byActivityId(String activityId) {
+        return query(where("_id").is(activityId));
+    }
+}
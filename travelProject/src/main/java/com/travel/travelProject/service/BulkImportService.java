@@ -0,0 +1,312 @@
+package com.travel.travelProject.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.mongodb.bulk.BulkWriteError;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.travel.travelProject.model.*;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Imports whole travel package trees (destinations, activities, passengers) with unordered bulk inserts.
+// A bad record is reported and skipped, it never fails the rest of the batch.
+@Service
+public class BulkImportService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectReader travelPackageReader;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public BulkImportService(MongoTemplate mongoTemplate, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.travelPackageReader = objectMapper.readerFor(TravelPackage.class);
+        this.eventPublisher = eventPublisher;
+    }
+
+    public BulkImportResult importTravelPackages(Iterator<TravelPackage> travelPackages) {
+        ImportRun run = new ImportRun();
+        List<ImportRecord> batch = new ArrayList<>();
+        while (travelPackages.hasNext()) {
+            batch.add(new ImportRecord(++run.received, travelPackages.next()));
+            if (batch.size() == BATCH_SIZE) {
+                writeBatch(batch, run);
+                batch.clear();
+            }
+        }
+        writeBatch(batch, run);
+        return run.result();
+    }
+
+    // One travel package tree per line, a malformed line is reported as a failed record
+    public BulkImportResult importNdjson(BufferedReader reader) throws IOException {
+        ImportRun run = new ImportRun();
+        List<ImportRecord> batch = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int record = ++run.received;
+            try {
+                batch.add(new ImportRecord(record, travelPackageReader.readValue(line)));
+            } catch (JsonProcessingException e) {
+                run.reject(record, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (batch.size() == BATCH_SIZE) {
+                writeBatch(batch, run);
+                batch.clear();
+            }
+        }
+        writeBatch(batch, run);
+        return run.result();
+    }
+
+    private void writeBatch(List<ImportRecord> batch, ImportRun run) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batch.forEach(record -> record.error = validate(record.travelPackage));
+        rejectDuplicateNames(batch);
+
+        List<Activity> activities = new ArrayList<>();
+        List<ImportRecord> activityOwners = new ArrayList<>();
+        List<ActivityEnrollment> enrollments = new ArrayList<>();
+        List<Destination> destinations = new ArrayList<>();
+        List<ImportRecord> destinationOwners = new ArrayList<>();
+        List<Passenger> passengers = new ArrayList<>();
+        List<ImportRecord> passengerOwners = new ArrayList<>();
+
+        for (ImportRecord record : batch) {
+            if (record.error != null) {
+                continue;
+            }
+            // Ids are assigned up front so the package can reference its children without reading them back
+            TravelPackage travelPackage = record.travelPackage;
+            travelPackage.setId(new ObjectId().toHexString());
+            travelPackage.setVersion(0);
+            travelPackage.touch();
+            for (Destination destination : travelPackage.getItinerary()) {
+                destination.setId(new ObjectId().toHexString());
+                destination.setTravelPackageID(travelPackage.getId());
+                for (Activity activity : destination.getActivities()) {
+                    activity.setId(new ObjectId().toHexString());
+                    activity.setDestinationName(destination.getName());
+                    activity.setDestinationId(destination.getId());
+                    record.activityIds.add(activity.getId());
+                    activities.add(activity);
+                    activityOwners.add(record);
+                    enrollments.add(new ActivityEnrollment(activity.getId(), activity.getCapacity(), 0, activity.getCapacity()));
+                }
+                record.destinationIds.add(destination.getId());
+                destinations.add(destination);
+                destinationOwners.add(record);
+            }
+            for (Passenger passenger : travelPackage.getPassengers()) {
+                passenger.setId(new ObjectId().toHexString());
+                passenger.setSignedUpActivities(new ArrayList<>());
+                record.passengerIds.add(passenger.getId());
+                passengers.add(passenger);
+                passengerOwners.add(record);
+            }
+        }
+
+        insertAll(Activity.class, activities, activityOwners, run);
+        insertAll(ActivityEnrollment.class, enrollments, activityOwners, run);
+        insertAll(Destination.class, destinations, destinationOwners, run);
+        insertAll(Passenger.class, passengers, passengerOwners, run);
+
+        // Packages go last and only for records whose children all made it, so no package points at a missing document
+        List<TravelPackage> travelPackages = new ArrayList<>();
+        List<ImportRecord> packageOwners = new ArrayList<>();
+        for (ImportRecord record : batch) {
+            if (record.error == null) {
+                travelPackages.add(record.travelPackage);
+                packageOwners.add(record);
+            }
+        }
+        insertAll(TravelPackage.class, travelPackages, packageOwners, run);
+        removeRejectedChildren(batch, run);
+
+        List<TravelPackage> imported = new ArrayList<>();
+        for (ImportRecord record : batch) {
+            if (record.error == null) {
+                run.imported++;
+                imported.add(record.travelPackage);
+            } else {
+                run.reject(record.number, record.travelPackage == null ? null : record.travelPackage.getName(), record.error);
+            }
+        }
+        if (!imported.isEmpty()) {
+            eventPublisher.publishEvent(new TravelPackageEvent.Imported(imported, Instant.now()));
+        }
+    }
+
+    private <T> void insertAll(Class<T> type, List<T> documents, List<ImportRecord> owners, ImportRun run) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+            run.documentsWritten += documents.size();
+        } catch (BulkOperationException e) {
+            run.documentsWritten += e.getResult().getInsertedCount();
+            for (BulkWriteError error : e.getErrors()) {
+                ImportRecord owner = owners.get(error.getIndex());
+                if (owner.error == null) {
+                    owner.error = error.getMessage();
+                }
+            }
+        }
+    }
+
+    // A record rejected by a later insert, or by the package insert itself, may already have some children written.
+    // They are removed by id, one delete per collection for the whole batch, so a rejected record leaves nothing behind.
+    private void removeRejectedChildren(List<ImportRecord> batch, ImportRun run) {
+        List<String> activityIds = new ArrayList<>();
+        List<String> destinationIds = new ArrayList<>();
+        List<String> passengerIds = new ArrayList<>();
+        for (ImportRecord record : batch) {
+            if (record.error != null) {
+                activityIds.addAll(record.activityIds);
+                destinationIds.addAll(record.destinationIds);
+                passengerIds.addAll(record.passengerIds);
+            }
+        }
+        removeAll(Activity.class, activityIds, run);
+        removeAll(ActivityEnrollment.class, activityIds, run);
+        removeAll(Destination.class, destinationIds, run);
+        removeAll(Passenger.class, passengerIds, run);
+    }
+
+    private void removeAll(Class<?> type, List<String> ids, ImportRun run) {
+        if (!ids.isEmpty()) {
+            run.documentsWritten -= mongoTemplate.remove(query(where("_id").in(ids)), type).getDeletedCount();
+        }
+    }
+
+    // Rejects names repeated within the batch or already taken, using one query for the whole batch
+    private void rejectDuplicateNames(List<ImportRecord> batch) {
+        Set<String> names = new HashSet<>();
+        for (ImportRecord record : batch) {
+            if (record.error == null && !names.add(record.travelPackage.getName())) {
+                record.error = "A TravelPackage with the name '" + record.travelPackage.getName() + "' already exists.";
+            }
+        }
+
+        Query query = query(where("name").in(names));
+        query.fields().include("name");
+        Set<String> existingNames = new HashSet<>();
+        for (TravelPackage existing : mongoTemplate.find(query, TravelPackage.class)) {
+            existingNames.add(existing.getName());
+        }
+        for (ImportRecord record : batch) {
+            if (record.error == null && existingNames.contains(record.travelPackage.getName())) {
+                record.error = "A TravelPackage with the name '" + record.travelPackage.getName() + "' already exists.";
+            }
+        }
+    }
+
+    private static String validate(TravelPackage travelPackage) {
+        if (travelPackage == null) {
+            return "Travel package cannot be null";
+        }
+        if (travelPackage.getName() == null || travelPackage.getName().isEmpty()) {
+            return "Travel package name cannot be null or empty";
+        }
+        if (travelPackage.getPassengerCapacity() <= 0) {
+            return "Passenger capacity must be positive";
+        }
+        if (travelPackage.getItinerary() == null) {
+            travelPackage.setItinerary(new ArrayList<>());
+        }
+        if (travelPackage.getPassengers() == null) {
+            travelPackage.setPassengers(new ArrayList<>());
+        }
+        if (travelPackage.getPassengers().size() > travelPackage.getPassengerCapacity()) {
+            return "Travel Package is already at full capacity";
+        }
+
+        for (Destination destination : travelPackage.getItinerary()) {
+            if (destination == null || destination.getName() == null || destination.getName().isEmpty()) {
+                return "Destination name cannot be null or empty";
+            }
+            if (destination.getActivities() == null) {
+                destination.setActivities(new ArrayList<>());
+            }
+            Set<String> activityNames = new HashSet<>();
+            for (Activity activity : destination.getActivities()) {
+                if (activity == null || activity.getName() == null || activity.getName().isEmpty()) {
+                    return "Activity name cannot be null or empty in destination '" + destination.getName() + "'";
+                }
+                if (!activityNames.add(activity.getName())) {
+                    return "Activity '" + activity.getName() + "' is already present in the destination.";
+                }
+                if (activity.getCost() < 0 || activity.getCapacity() <= 0) {
+                    return "Activity '" + activity.getName() + "' needs a non-negative cost and a positive capacity";
+                }
+            }
+        }
+
+        Set<String> passengerNumbers = new HashSet<>();
+        for (Passenger passenger : travelPackage.getPassengers()) {
+            if (passenger == null || passenger.getPassengerNumber() == null || passenger.getType() == null) {
+                return "Passenger needs a passenger number and a type";
+            }
+            if (!passengerNumbers.add(passenger.getPassengerNumber())) {
+                return "Passenger with the same number already exists";
+            }
+        }
+        return null;
+    }
+
+    private static class ImportRecord {
+        private final int number;
+        private final TravelPackage travelPackage;
+        private final List<String> activityIds = new ArrayList<>();
+        private final List<String> destinationIds = new ArrayList<>();
+        private final List<String> passengerIds = new ArrayList<>();
+        private String error;
+
+        private ImportRecord(int number, TravelPackage travelPackage) {
+            this.number = number;
+            this.travelPackage = travelPackage;
+        }
+    }
+
+    private static class ImportRun {
+        private final long startNanos = System.nanoTime();
+        private final List<BulkImportError> errors = new ArrayList<>();
+        private int received;
+        private int imported;
+        private long documentsWritten;
+
+        private void reject(int record, String name, String message) {
+            errors.add(new BulkImportError(record, name, message));
+        }
+
+        private BulkImportResult result() {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            double recordsPerSecond = elapsedNanos > 0 ? received * 1_000_000_000.0 / elapsedNanos : 0;
+            return new BulkImportResult(received, imported, errors.size(), documentsWritten,
+                    elapsedNanos / 1_000_000, recordsPerSecond, errors);
+        }
+    }
+}
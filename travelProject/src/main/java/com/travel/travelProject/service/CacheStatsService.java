@@ -0,0 +1,34 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class CacheStatsService {
+
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public CacheStatsService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new TreeMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(cacheName) instanceof CaffeineCache caffeineCache) {
+                com.github.benmanes.caffeine.cache.Cache<Object, Object> cache = caffeineCache.getNativeCache();
+                com.github.benmanes.caffeine.cache.stats.CacheStats cacheStats = cache.stats();
+                stats.put(cacheName, new CacheStats(cache.estimatedSize(), cacheStats.hitCount(),
+                        cacheStats.missCount(), cacheStats.evictionCount(), cacheStats.hitRate()));
+            }
+        }
+        return stats;
+    }
+}
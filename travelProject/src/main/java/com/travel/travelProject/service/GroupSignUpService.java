@@ -0,0 +1,295 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.Exception.NotFoundException;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.travel.travelProject.model.*;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Signs up many (passenger, activity) pairs of one package together. Balances are checked in memory after one read per
+// collection, seats are taken with one guarded update per activity and all passengers are charged in one bulk write.
+@Service
+public class GroupSignUpService {
+
+    public enum Mode {
+        // Either every pair is signed up or none is
+        ALL_OR_NOTHING,
+        // Every pair that can be signed up is, the others report why not
+        BEST_EFFORT
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ActivitySeatService activitySeatService;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public GroupSignUpService(MongoTemplate mongoTemplate, ActivitySeatService activitySeatService, CacheManager cacheManager,
+                              ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.activitySeatService = activitySeatService;
+        this.cacheManager = cacheManager;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public GroupSignUpResult signUp(String travelPackageId, Mode mode, List<SignUpRequest> signUps) {
+        Query packageQuery = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId)));
+        packageQuery.fields().include("name", "itinerary", "passengers");
+        Document travelPackage = mongoTemplate.findOne(packageQuery, Document.class, "travelPackages");
+        if (travelPackage == null) {
+            throw new NotFoundException("Travel Package", "ID: " + travelPackageId);
+        }
+
+        Set<String> packagePassengerIds = new HashSet<>(TravelDocuments.passengerIds(travelPackage));
+        Set<String> packageActivityIds = TravelDocuments.itineraryActivityIds(travelPackage);
+        Set<String> passengerIds = new HashSet<>();
+        Set<String> activityIds = new HashSet<>();
+        for (SignUpRequest signUp : signUps) {
+            if (packagePassengerIds.contains(signUp.getPassengerId())) {
+                passengerIds.add(signUp.getPassengerId());
+            }
+            if (packageActivityIds.contains(signUp.getActivityId())) {
+                activityIds.add(signUp.getActivityId());
+            }
+        }
+        Map<String, Passenger> passengers = findById(passengerIds, Passenger.class, Passenger::getId);
+        Map<String, Activity> activities = findById(activityIds, Activity.class, Activity::getId);
+
+        List<SignUpOutcome> outcomes = new ArrayList<>();
+        List<SignUpOutcome> accepted = price(signUps, passengers, activities, outcomes);
+        if (mode == Mode.ALL_OR_NOTHING && accepted.size() < outcomes.size()) {
+            abandon(accepted);
+            return result(mode, outcomes);
+        }
+
+        List<SignUpOutcome> seated = reserveSeats(mode, accepted, activities);
+        if (mode == Mode.ALL_OR_NOTHING && seated.size() < accepted.size()) {
+            abandon(accepted.stream().filter(outcome -> outcome.getStatus() == null).toList());
+            return result(mode, outcomes);
+        }
+
+        List<SignUpOutcome> charged = charge(mode, seated);
+        charged.forEach(outcome -> outcome.setStatus(SignUpOutcome.Status.SIGNED_UP));
+        if (!charged.isEmpty()) {
+            // The bookings show in the passenger list, so they make a new version of the package
+            mongoTemplate.updateFirst(query(where("_id").is(TravelDocuments.asObjectId(travelPackageId))),
+                    TravelDocuments.touch(), "travelPackages");
+        }
+        evictCachedSignUps(travelPackageId, travelPackage.getString("name"), charged);
+        for (Map.Entry<String, List<SignUpOutcome>> entry : groupBy(charged, SignUpOutcome::getActivityId).entrySet()) {
+            eventPublisher.publishEvent(new TravelPackageEvent.SignedUp(travelPackageId, entry.getKey(),
+                    entry.getValue().size(), total(entry.getValue()), Instant.now()));
+        }
+        return result(mode, outcomes);
+    }
+
+    // Checks every pair in request order, a passenger's balance has to cover all of their accepted pairs together
+    private List<SignUpOutcome> price(List<SignUpRequest> signUps, Map<String, Passenger> passengers,
+                                      Map<String, Activity> activities, List<SignUpOutcome> outcomes) {
+        List<SignUpOutcome> accepted = new ArrayList<>();
+        Map<String, Double> balances = new HashMap<>();
+        Set<String> requestedPairs = new HashSet<>();
+        for (SignUpRequest signUp : signUps) {
+            SignUpOutcome outcome = new SignUpOutcome(signUp.getPassengerId(), signUp.getActivityId(), null, 0);
+            outcomes.add(outcome);
+
+            Passenger passenger = passengers.get(signUp.getPassengerId());
+            Activity activity = activities.get(signUp.getActivityId());
+            if (passenger == null || activity == null) {
+                outcome.setStatus(SignUpOutcome.Status.NOT_FOUND);
+                continue;
+            }
+            if (!requestedPairs.add(passenger.getId() + "/" + activity.getId())
+                    || passenger.getBookedActivityIds().contains(activity.getId())) {
+                outcome.setStatus(SignUpOutcome.Status.ALREADY_SIGNED_UP);
+                continue;
+            }
+            if (passenger.getType() == null) {
+                outcome.setStatus(SignUpOutcome.Status.INVALID_PASSENGER);
+                continue;
+            }
+
+            double price = passenger.getType().priceOf(activity.getCost());
+            double balance = balances.getOrDefault(passenger.getId(), passenger.getBalance());
+            if (balance < price) {
+                outcome.setStatus(SignUpOutcome.Status.INSUFFICIENT_BALANCE);
+                continue;
+            }
+            balances.put(passenger.getId(), balance - price);
+            outcome.setPricePaid(price);
+            accepted.add(outcome);
+        }
+        return accepted;
+    }
+
+    // One guarded update per activity. Best effort takes the seats that are left and serves pairs in request order,
+    // all-or-nothing gives back what it took as soon as one activity is short.
+    private List<SignUpOutcome> reserveSeats(Mode mode, List<SignUpOutcome> accepted, Map<String, Activity> activities) {
+        Map<String, List<SignUpOutcome>> byActivity = groupBy(accepted, SignUpOutcome::getActivityId);
+        activitySeatService.ensureTracked(byActivity.keySet().stream().map(activities::get).toList());
+
+        List<SignUpOutcome> seated = new ArrayList<>();
+        for (Map.Entry<String, List<SignUpOutcome>> entry : byActivity.entrySet()) {
+            List<SignUpOutcome> requested = entry.getValue();
+            int seats = activitySeatService.reserveSeats(entry.getKey(), requested.size(), mode == Mode.BEST_EFFORT);
+            seated.addAll(requested.subList(0, seats));
+            for (SignUpOutcome soldOut : requested.subList(seats, requested.size())) {
+                soldOut.setStatus(SignUpOutcome.Status.SOLD_OUT);
+                soldOut.setPricePaid(0);
+            }
+            if (mode == Mode.ALL_OR_NOTHING && seats < requested.size()) {
+                releaseSeats(seated);
+                return List.of();
+            }
+        }
+        return seated;
+    }
+
+    // All passengers in one bulk write, each update guarded on the balance still covering the passenger's total and on
+    // none of the passenger's activities having been booked since the read, so a pair is never pushed twice
+    private List<SignUpOutcome> charge(Mode mode, List<SignUpOutcome> seated) {
+        Map<String, List<SignUpOutcome>> byPassenger = groupBy(seated, SignUpOutcome::getPassengerId);
+        if (byPassenger.isEmpty()) {
+            return seated;
+        }
+
+        String signUpId = UUID.randomUUID().toString();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Passenger.class);
+        for (Map.Entry<String, List<SignUpOutcome>> entry : byPassenger.entrySet()) {
+            double total = total(entry.getValue());
+            Object[] bookings = entry.getValue().stream()
+                    .map(outcome -> new ActivityBooking(outcome.getActivityId(), outcome.getPricePaid(), signUpId))
+                    .toArray();
+            List<Object> activityIds = entry.getValue().stream()
+                    .map(outcome -> TravelDocuments.asObjectId(outcome.getActivityId()))
+                    .toList();
+            bulk.updateOne(query(where("_id").is(entry.getKey()).and("balance").gte(total)
+                            .and("signedUpActivities.activityId").nin(activityIds)),
+                    new Update().inc("balance", -total).push("signedUpActivities").each(bookings));
+        }
+        if (bulk.execute().getModifiedCount() == byPassenger.size()) {
+            return seated;
+        }
+
+        // A concurrent sign-up drained some balances or booked some of the same activities since they were read
+        Map<String, SignUpOutcome.Status> uncharged = findUncharged(signUpId, byPassenger);
+        List<SignUpOutcome> charged = new ArrayList<>();
+        List<SignUpOutcome> rejected = new ArrayList<>();
+        for (SignUpOutcome outcome : seated) {
+            (uncharged.containsKey(outcome.getPassengerId()) ? rejected : charged).add(outcome);
+        }
+        releaseSeats(rejected);
+        for (SignUpOutcome outcome : rejected) {
+            outcome.setStatus(uncharged.get(outcome.getPassengerId()));
+            outcome.setPricePaid(0);
+        }
+
+        if (mode == Mode.ALL_OR_NOTHING) {
+            refund(signUpId, charged);
+            releaseSeats(charged);
+            abandon(charged);
+            return List.of();
+        }
+        return charged;
+    }
+
+    // Only bookings carrying this sign-up's id show that its update applied, a booking of the same activity by another
+    // call does not. A passenger who now holds one of the activities anyway was signed up meanwhile, the others ran out.
+    private Map<String, SignUpOutcome.Status> findUncharged(String signUpId, Map<String, List<SignUpOutcome>> byPassenger) {
+        Query query = query(where("_id").in(byPassenger.keySet()));
+        query.fields().include("signedUpActivities");
+
+        Map<String, SignUpOutcome.Status> uncharged = new HashMap<>();
+        byPassenger.keySet().forEach(passengerId -> uncharged.put(passengerId, SignUpOutcome.Status.INSUFFICIENT_BALANCE));
+        for (Passenger passenger : mongoTemplate.find(query, Passenger.class)) {
+            if (passenger.getBookings().stream().anyMatch(booking -> signUpId.equals(booking.getSignUpId()))) {
+                uncharged.remove(passenger.getId());
+            } else if (byPassenger.get(passenger.getId()).stream()
+                    .anyMatch(outcome -> passenger.getBookedActivityIds().contains(outcome.getActivityId()))) {
+                uncharged.put(passenger.getId(), SignUpOutcome.Status.ALREADY_SIGNED_UP);
+            }
+        }
+        return uncharged;
+    }
+
+    // Pulls only the bookings this sign-up pushed, a booking of the same activity made meanwhile by another call stays
+    private void refund(String signUpId, List<SignUpOutcome> charged) {
+        Map<String, List<SignUpOutcome>> byPassenger = groupBy(charged, SignUpOutcome::getPassengerId);
+        if (byPassenger.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Passenger.class);
+        for (Map.Entry<String, List<SignUpOutcome>> entry : byPassenger.entrySet()) {
+            bulk.updateOne(query(where("_id").is(entry.getKey())), new Update()
+                    .inc("balance", total(entry.getValue()))
+                    .pull("signedUpActivities", new Document("signUpId", signUpId)));
+        }
+        bulk.execute();
+    }
+
+    private void releaseSeats(List<SignUpOutcome> seated) {
+        for (Map.Entry<String, List<SignUpOutcome>> entry : groupBy(seated, SignUpOutcome::getActivityId).entrySet()) {
+            activitySeatService.releaseSeats(entry.getKey(), entry.getValue().size());
+        }
+    }
+
+    // Pairs that were fine on their own but are dropped because the group is all-or-nothing
+    private static void abandon(List<SignUpOutcome> outcomes) {
+        for (SignUpOutcome outcome : outcomes) {
+            outcome.setStatus(SignUpOutcome.Status.NOT_ATTEMPTED);
+            outcome.setPricePaid(0);
+        }
+    }
+
+    private void evictCachedSignUps(String travelPackageId, String travelPackageName, List<SignUpOutcome> charged) {
+        if (charged.isEmpty()) {
+            return;
+        }
+        Objects.requireNonNull(cacheManager.getCache("travelPackagesById")).evict(travelPackageId);
+        Objects.requireNonNull(cacheManager.getCache("travelPackagesByName")).evict(travelPackageName);
+        Objects.requireNonNull(cacheManager.getCache("itineraries")).evict(travelPackageId);
+        Cache passengersById = Objects.requireNonNull(cacheManager.getCache("passengersById"));
+        charged.forEach(outcome -> passengersById.evict(outcome.getPassengerId()));
+    }
+
+    private <T> Map<String, T> findById(Collection<String> ids, Class<T> type, Function<T, String> idOf) {
+        Map<String, T> byId = new HashMap<>();
+        for (T entity : mongoTemplate.find(query(where("_id").in(ids)), type)) {
+            byId.put(idOf.apply(entity), entity);
+        }
+        return byId;
+    }
+
+    private static Map<String, List<SignUpOutcome>> groupBy(List<SignUpOutcome> outcomes, Function<SignUpOutcome, String> key) {
+        Map<String, List<SignUpOutcome>> grouped = new LinkedHashMap<>();
+        for (SignUpOutcome outcome : outcomes) {
+            grouped.computeIfAbsent(key.apply(outcome), k -> new ArrayList<>()).add(outcome);
+        }
+        return grouped;
+    }
+
+    private static double total(List<SignUpOutcome> outcomes) {
+        return outcomes.stream().mapToDouble(SignUpOutcome::getPricePaid).sum();
+    }
+
+    private static GroupSignUpResult result(Mode mode, List<SignUpOutcome> outcomes) {
+        int signedUp = (int) outcomes.stream().filter(outcome -> outcome.getStatus() == SignUpOutcome.Status.SIGNED_UP).count();
+        return new GroupSignUpResult(mode.name(), outcomes.size(), signedUp, outcomes);
+    }
+}
@@ -0,0 +1,215 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.travel.travelProject.model.*;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Maintains the PackageAvailability read model. Each event becomes one targeted update of the package's document;
+// packages without a document yet, and structural changes, are rebuilt from the stored package instead.
+@Slf4j
+@Service
+public class PackageAvailabilityService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ActivitySeatService activitySeatService;
+    private final TravelMetrics travelMetrics;
+
+    @Value("${travel.availability.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Autowired
+    public PackageAvailabilityService(MongoTemplate mongoTemplate, ActivitySeatService activitySeatService, TravelMetrics travelMetrics) {
+        this.mongoTemplate = mongoTemplate;
+        this.activitySeatService = activitySeatService;
+        this.travelMetrics = travelMetrics;
+    }
+
+    public PackageAvailability getAvailability(String travelPackageId, ReadPreference readPreference) {
+        return mongoTemplate.findOne(query(where("_id").is(travelPackageId)).withReadPreference(readPreference), PackageAvailability.class);
+    }
+
+    // The write that raised the event has already been stored, so a failure here only leaves the read model behind
+    // until the next rebuild. Events are applied on the writing thread, before the request answers.
+    @EventListener
+    public void on(TravelPackageEvent event) {
+        try {
+            apply(event);
+            travelMetrics.recordAvailabilityUpdate(Duration.between(event.occurredAt(), Instant.now()));
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not apply {} to the availability read model: {}", event.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    void apply(TravelPackageEvent event) {
+        switch (event) {
+            case TravelPackageEvent.Created created -> mongoTemplate.save(new PackageAvailability(created.travelPackageId(),
+                    created.name(), created.passengerCapacity(), 0, created.passengerCapacity(), 0,
+                    new LinkedHashMap<>(), created.occurredAt()));
+            case TravelPackageEvent.Imported imported -> {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PackageAvailability.class);
+                for (TravelPackage travelPackage : imported.travelPackages()) {
+                    bulk.insert(imported(travelPackage, imported.occurredAt()));
+                }
+                bulk.execute();
+            }
+            case TravelPackageEvent.Restructured restructured -> rebuild(restructured.travelPackageId());
+            case TravelPackageEvent.PassengerAdded added -> update(added.travelPackageId(), added,
+                    new Update().inc("enrolledPassengers", 1).inc("remainingCapacity", -1));
+            case TravelPackageEvent.ActivityAdded added -> update(added.travelPackageId(), added,
+                    new Update().set("activities." + added.activity().getId(),
+                            new ActivityAvailability(added.activity(), 0, added.activity().getCapacity(), 0)));
+            case TravelPackageEvent.SignedUp signedUp -> {
+                String activity = "activities." + signedUp.activityId();
+                update(signedUp.travelPackageId(), signedUp, new Update()
+                        .inc(activity + ".enrolled", signedUp.seats())
+                        .inc(activity + ".seatsLeft", -signedUp.seats())
+                        .inc(activity + ".revenue", signedUp.revenue())
+                        .inc("revenue", signedUp.revenue()));
+            }
+        }
+    }
+
+    private void update(String travelPackageId, TravelPackageEvent event, Update update) {
+        update.max("updatedAt", event.occurredAt());
+        if (mongoTemplate.updateFirst(query(where("_id").is(travelPackageId)), update, PackageAvailability.class).getMatchedCount() == 0) {
+            rebuild(travelPackageId);
+        }
+    }
+
+    // Recomputes one package from its stored itinerary, the seat counters and its passengers' bookings
+    public PackageAvailability rebuild(String travelPackageId) {
+        Query packageQuery = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId)));
+        packageQuery.fields().include("name", "passengerCapacity", "itinerary", "passengers");
+        Document travelPackage = mongoTemplate.findOne(packageQuery, Document.class, "travelPackages");
+        if (travelPackage == null) {
+            mongoTemplate.remove(query(where("_id").is(travelPackageId)), PackageAvailability.class);
+            return null;
+        }
+
+        Set<String> activityIds = TravelDocuments.itineraryActivityIds(travelPackage);
+        List<String> passengerIds = TravelDocuments.passengerIds(travelPackage);
+        Map<String, Activity> activitiesById = new HashMap<>();
+        for (Activity activity : mongoTemplate.find(query(where("_id").in(activityIds)), Activity.class)) {
+            activitiesById.put(activity.getId(), activity);
+        }
+        Map<String, Integer> seatsLeft = activitySeatService.availableSpaces(activitiesById.values());
+
+        Aggregation aggregation = newAggregation(
+                match(where("_id").in(passengerIds.stream().map(TravelDocuments::asObjectId).toList())),
+                unwind("signedUpActivities"),
+                match(where("signedUpActivities.activityId").in(activityIds.stream().map(TravelDocuments::asObjectId).toList())),
+                group("signedUpActivities.activityId").count().as("enrolled").sum("signedUpActivities.pricePaid").as("revenue"));
+        Map<String, Document> bookingsByActivity = new HashMap<>();
+        for (Document bookings : mongoTemplate.aggregate(aggregation, "passengers", Document.class)) {
+            bookingsByActivity.put(String.valueOf(bookings.get("_id")), bookings);
+        }
+
+        Map<String, ActivityAvailability> activities = new LinkedHashMap<>();
+        double revenue = 0;
+        for (String activityId : activityIds) {
+            Activity activity = activitiesById.get(activityId);
+            if (activity == null) {
+                continue;
+            }
+            Document bookings = bookingsByActivity.getOrDefault(activityId, new Document());
+            double activityRevenue = bookings.get("revenue", Number.class) != null ? bookings.get("revenue", Number.class).doubleValue() : 0;
+            activities.put(activityId, new ActivityAvailability(activity, bookings.getInteger("enrolled", 0),
+                    seatsLeft.get(activityId), activityRevenue));
+            revenue += activityRevenue;
+        }
+
+        int passengerCapacity = travelPackage.getInteger("passengerCapacity", 0);
+        PackageAvailability availability = new PackageAvailability(travelPackageId, travelPackage.getString("name"),
+                passengerCapacity, passengerIds.size(), passengerCapacity - passengerIds.size(), revenue, activities, Instant.now());
+        return mongoTemplate.save(availability);
+    }
+
+    // Full rebuild of the read model, e.g. after a data fix or a bad deploy. Sign-ups that land while it runs may be
+    // counted twice, so run it when sign-ups are quiet.
+    public int rebuildAll() {
+        int rebuilt = 0;
+        for (String travelPackageId : travelPackageIds()) {
+            rebuild(travelPackageId);
+            rebuilt++;
+        }
+        return rebuilt;
+    }
+
+    // Builds the documents of packages created before the read model existed
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildMissingOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            Query existingQuery = new Query();
+            existingQuery.fields().include("_id");
+            Set<String> existing = new HashSet<>();
+            for (Document availability : mongoTemplate.find(existingQuery, Document.class, "packageAvailability")) {
+                existing.add(String.valueOf(availability.get("_id")));
+            }
+
+            int rebuilt = 0;
+            for (String travelPackageId : travelPackageIds()) {
+                if (!existing.contains(travelPackageId)) {
+                    rebuild(travelPackageId);
+                    rebuilt++;
+                }
+            }
+            if (rebuilt > 0) {
+                log.info("Built the availability read model of {} travel packages", rebuilt);
+            }
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not build the availability read model: {}", e.getMessage());
+        }
+    }
+
+    private List<String> travelPackageIds() {
+        Query query = new Query();
+        query.fields().include("_id");
+        List<String> travelPackageIds = new ArrayList<>();
+        try (Stream<Document> travelPackages = mongoTemplate.stream(query, Document.class, "travelPackages")) {
+            travelPackages.forEach(travelPackage -> travelPackageIds.add(String.valueOf(travelPackage.get("_id"))));
+        }
+        return travelPackageIds;
+    }
+
+    // Imported packages have no sign-ups yet, every seat of their activities is still free
+    private static PackageAvailability imported(TravelPackage travelPackage, Instant occurredAt) {
+        Map<String, ActivityAvailability> activities = new LinkedHashMap<>();
+        for (Destination destination : travelPackage.getItinerary()) {
+            for (Activity activity : destination.getActivities()) {
+                activities.put(activity.getId(), new ActivityAvailability(activity, 0, activity.getCapacity(), 0));
+            }
+        }
+        int passengers = travelPackage.getPassengers().size();
+        return new PackageAvailability(travelPackage.getId(), travelPackage.getName(), travelPackage.getPassengerCapacity(),
+                passengers, travelPackage.getPassengerCapacity() - passengers, 0, activities, occurredAt);
+    }
+}
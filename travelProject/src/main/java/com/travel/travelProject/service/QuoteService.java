@@ -0,0 +1,168 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.*;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Prices activities with the same PassengerType rules as a sign-up, without changing anything. Passengers,
+// activities and itineraries come from the lookup caches; whatever a batch misses is loaded with one query per kind.
+@Service
+public class QuoteService {
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public QuoteService(MongoTemplate mongoTemplate, CacheManager cacheManager) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    public Quote quote(QuoteRequest request) {
+        return quote(List.of(request)).get(0);
+    }
+
+    // One quote per request, in request order. A request that cannot be priced gets a quote with an error.
+    public List<Quote> quote(List<QuoteRequest> requests) {
+        Set<String> passengerIds = new HashSet<>();
+        Set<String> activityIds = new HashSet<>();
+        Set<String> travelPackageIds = new HashSet<>();
+        for (QuoteRequest request : requests) {
+            if (request.getPassengerId() != null) {
+                passengerIds.add(request.getPassengerId());
+            }
+            if (request.getActivityIds() != null && !request.getActivityIds().isEmpty()) {
+                activityIds.addAll(request.getActivityIds());
+            } else if (request.getTravelPackageId() != null) {
+                travelPackageIds.add(request.getTravelPackageId());
+            }
+        }
+
+        Map<String, Passenger> passengers = findCached("passengersById", passengerIds, Passenger.class, Passenger::getId);
+        Map<String, List<Activity>> itineraryActivities = new HashMap<>();
+        List<Document> travelPackages = findItineraries(travelPackageIds, itineraryActivities);
+        // Activities of the packages read here are loaded together with the requested ones
+        for (Document travelPackage : travelPackages) {
+            activityIds.addAll(TravelDocuments.itineraryActivityIds(travelPackage));
+        }
+        Map<String, Activity> activities = findCached("activitiesById", activityIds, Activity.class, Activity::getId);
+        for (Document travelPackage : travelPackages) {
+            itineraryActivities.put(travelPackage.get("_id").toString(),
+                    activitiesOf(TravelDocuments.itinerary(travelPackage, activities)));
+        }
+
+        List<Quote> quotes = new ArrayList<>(requests.size());
+        for (QuoteRequest request : requests) {
+            quotes.add(quote(request, passengers, activities, itineraryActivities));
+        }
+        return quotes;
+    }
+
+    private static Quote quote(QuoteRequest request, Map<String, Passenger> passengers, Map<String, Activity> activities,
+                               Map<String, List<Activity>> itineraryActivities) {
+        Passenger passenger = null;
+        if (request.getPassengerId() != null) {
+            passenger = passengers.get(request.getPassengerId());
+            if (passenger == null) {
+                return Quote.failed(request, "Passenger not found ID: " + request.getPassengerId());
+            }
+        }
+        Passenger.PassengerType type = passenger != null ? passenger.getType() : request.getType();
+        if (type == null) {
+            return Quote.failed(request, "Passenger or passenger type is required");
+        }
+
+        List<Activity> quoted = new ArrayList<>();
+        if (request.getActivityIds() != null && !request.getActivityIds().isEmpty()) {
+            for (String activityId : request.getActivityIds()) {
+                Activity activity = activities.get(activityId);
+                if (activity == null) {
+                    return Quote.failed(request, "Activity not found ID: " + activityId);
+                }
+                quoted.add(activity);
+            }
+        } else if (request.getTravelPackageId() != null) {
+            List<Activity> itinerary = itineraryActivities.get(request.getTravelPackageId());
+            if (itinerary == null) {
+                return Quote.failed(request, "Travel Package not found ID: " + request.getTravelPackageId());
+            }
+            quoted.addAll(itinerary);
+        } else {
+            return Quote.failed(request, "Activities or a travel package are required");
+        }
+
+        return price(request.getPassengerId(), type, passenger != null ? passenger.getBalance() : null, quoted);
+    }
+
+    public static Quote price(String passengerId, Passenger.PassengerType type, Double balance, List<Activity> activities) {
+        List<QuoteLine> lines = new ArrayList<>(activities.size());
+        double total = 0;
+        for (Activity activity : activities) {
+            double price = type.priceOf(activity.getCost());
+            lines.add(new QuoteLine(activity.getId(), activity.getName(), activity.getCost(), price));
+            total += price;
+        }
+        Boolean affordable = balance != null ? total == 0 || balance >= total : null;
+        return new Quote(passengerId, type, lines, total, balance, affordable, null);
+    }
+
+    // Cached itineraries are used as they are, the other packages are read in one query and returned to be resolved
+    private List<Document> findItineraries(Set<String> travelPackageIds, Map<String, List<Activity>> itineraryActivities) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache("itineraries"));
+        List<Object> missing = new ArrayList<>();
+        for (String travelPackageId : travelPackageIds) {
+            TravelPackageItinerary cached = cache.get(travelPackageId, TravelPackageItinerary.class);
+            if (cached != null) {
+                itineraryActivities.put(travelPackageId, activitiesOf(cached.getItinerary()));
+            } else {
+                missing.add(TravelDocuments.asObjectId(travelPackageId));
+            }
+        }
+        if (missing.isEmpty()) {
+            return List.of();
+        }
+        Query packageQuery = query(where("_id").in(missing));
+        packageQuery.fields().include("itinerary");
+        return mongoTemplate.find(packageQuery, Document.class, "travelPackages");
+    }
+
+    private static List<Activity> activitiesOf(List<Destination> itinerary) {
+        return itinerary.stream()
+                .filter(destination -> destination.getActivities() != null)
+                .flatMap(destination -> destination.getActivities().stream())
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private <T> Map<String, T> findCached(String cacheName, Set<String> ids, Class<T> type, Function<T, String> idOf) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(cacheName));
+        Map<String, T> found = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String id : ids) {
+            T cached = cache.get(id, type);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (T loaded : mongoTemplate.find(query(where("_id").in(missing)), type)) {
+                found.put(idOf.apply(loaded), loaded);
+                cache.put(idOf.apply(loaded), loaded);
+            }
+        }
+        return found;
+    }
+}
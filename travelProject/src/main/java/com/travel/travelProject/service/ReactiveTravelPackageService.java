@@ -0,0 +1,398 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.DBRef;
+import com.travel.travelProject.Exception.NotFoundException;
+import com.travel.travelProject.Exception.TravelException;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.travel.travelProject.model.*;
+import com.travel.travelProject.repository.ReactiveActivityRepository;
+import com.travel.travelProject.repository.ReactiveDestinationRepository;
+import com.travel.travelProject.repository.ReactivePassengerRepository;
+import com.travel.travelProject.repository.ReactiveTravelPackageRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Non-blocking counterpart of TravelPackageService for the "reactive" profile.
+// The reactive converter cannot resolve @DBRef, so packages and destinations are read as raw documents and their
+// passengers and activities are fetched in one batch each. Writes issue the same guarded updates as the servlet stack,
+// evict the same caches and publish the same TravelPackageEvents, so the read models stay current whichever stack wrote.
+@Service
+@Profile("reactive")
+public class ReactiveTravelPackageService {
+
+    private static final String TRAVEL_PACKAGES = "travelPackages";
+    private static final String DESTINATIONS = "destinations";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    public ReactiveTravelPackageService(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Autowired
+    private ReactiveTravelPackageRepository travelPackageRepository;
+
+    @Autowired
+    private ReactivePassengerRepository passengerRepository;
+
+    @Autowired
+    private ReactiveActivityRepository activityRepository;
+
+    @Autowired
+    private ReactiveDestinationRepository destinationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // The list views leave out the passengers like TravelPackageService, passengerList serves them
+    public Flux<TravelPackage> getAllTravelPackages() {
+        Query query = catalogQuery().with(Sort.by(Sort.Direction.ASC, "_id"));
+        return mongoTemplate.find(query, Document.class, TRAVEL_PACKAGES).concatMap(this::toListedTravelPackage);
+    }
+
+    public Mono<TravelPackagePage> getTravelPackagePage(String after, int pageSize) {
+        int limit = Math.min(Math.max(pageSize, 1), TravelPackageService.MAX_PAGE_SIZE);
+        Query query = catalogQuery().with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit + 1);
+        if (after != null && !after.isEmpty()) {
+            query.addCriteria(where("_id").gt(TravelDocuments.asObjectId(after)));
+        }
+
+        return mongoTemplate.find(query, Document.class, TRAVEL_PACKAGES).concatMap(this::toListedTravelPackage).collectList()
+                .map(travelPackages -> travelPackages.size() <= limit
+                        ? new TravelPackagePage(travelPackages, null)
+                        : new TravelPackagePage(new ArrayList<>(travelPackages.subList(0, limit)), travelPackages.get(limit - 1).getId()));
+    }
+
+    private static Query catalogQuery() {
+        Query query = new Query();
+        query.fields().exclude("passengers");
+        return query;
+    }
+
+    public Mono<TravelPackage> getTravelPackageById(String travelPackageId) {
+        return mongoTemplate.findOne(query(where("_id").is(TravelDocuments.asObjectId(travelPackageId))), Document.class, TRAVEL_PACKAGES)
+                .flatMap(this::toTravelPackage);
+    }
+
+    public Mono<TravelPackage> getTravelPackageByName(String packageName) {
+        return mongoTemplate.findOne(query(where("name").is(packageName)), Document.class, TRAVEL_PACKAGES)
+                .flatMap(this::toTravelPackage);
+    }
+
+    public Mono<PassengerDetails> getPassengerDetails(String passengerId) {
+        return passengerRepository.findById(passengerId)
+                .flatMap(passenger -> findActivitiesById(passenger.getBookedActivityIds())
+                        .map(activitiesById -> PassengerDetails.of(passenger, activitiesById)));
+    }
+
+    public Mono<TravelPackageItinerary> getItinerary(String travelPackageId) {
+        Aggregation aggregation = newAggregation(
+                match(where("_id").is(TravelDocuments.asObjectId(travelPackageId))),
+                project("name", "passengerCapacity", "itinerary", "version", "lastModified")
+                        .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("passengers").then(List.of())))
+                        .as("passengerCount"));
+
+        return mongoTemplate.aggregate(aggregation, TRAVEL_PACKAGES, Document.class).next()
+                .flatMap(travelPackage -> findActivitiesById(TravelDocuments.itineraryActivityIds(travelPackage))
+                        .map(activitiesById -> {
+                            PackageVersion version = TravelDocuments.packageVersion(travelPackage);
+                            return new TravelPackageItinerary(travelPackage.get("_id").toString(),
+                                    travelPackage.getString("name"), travelPackage.getInteger("passengerCapacity", 0),
+                                    TravelDocuments.itinerary(travelPackage, activitiesById),
+                                    travelPackage.getInteger("passengerCount", 0), version.getVersion(), version.getLastModified());
+                        }));
+    }
+
+    // Emits the activities with seats left in itinerary order, so large itineraries can be streamed to the client
+    public Flux<AvailableActivity> getAvailableActivities(String travelPackageId) {
+        return findRawPackage(travelPackageId, "itinerary").flatMapMany(travelPackage -> {
+            Set<String> activityIds = TravelDocuments.itineraryActivityIds(travelPackage);
+            return Mono.zip(findActivitiesById(activityIds), findSeatsRemaining(activityIds))
+                    .flatMapIterable(loaded -> {
+                        List<AvailableActivity> availableActivities = new ArrayList<>();
+                        for (String activityId : activityIds) {
+                            Activity activity = loaded.getT1().get(activityId);
+                            if (activity == null) {
+                                continue;
+                            }
+                            int availableSpaces = loaded.getT2().getOrDefault(activityId, activity.getCapacity());
+                            if (availableSpaces > 0) {
+                                availableActivities.add(new AvailableActivity(activity, availableSpaces));
+                            }
+                        }
+                        return availableActivities;
+                    });
+        });
+    }
+
+    // Streams the passengers of a package straight from the cursor, demand from the client drives the reads
+    public Flux<Passenger> getPassengersForTravelPackage(String travelPackageId) {
+        return findRawPackage(travelPackageId, "passengers")
+                .flatMapMany(travelPackage -> passengerRepository.findAllById(TravelDocuments.passengerIds(travelPackage)));
+    }
+
+    public Mono<PassengerListResponse> getPassengerList(String travelPackageId) {
+        return findRawPackage(travelPackageId, "name", "passengerCapacity", "passengers")
+                .flatMap(travelPackage -> passengerRepository.findAllById(TravelDocuments.passengerIds(travelPackage)).collectList()
+                        .map(passengers -> new PassengerListResponse(travelPackage.getString("name"),
+                                travelPackage.getInteger("passengerCapacity", 0), passengers.size(), passengers)));
+    }
+
+    public Mono<TravelPackage> createTravelPackage(String name, int passengerCapacity) {
+        return travelPackageRepository.existsByName(name).flatMap(exists -> exists
+                ? Mono.error(new RuntimeException("A TravelPackage with the name '" + name + "' already exists."))
+                : Mono.defer(() -> {
+                    TravelPackage travelPackage = new TravelPackage(name, passengerCapacity);
+                    travelPackage.touch();
+                    return travelPackageRepository.save(travelPackage);
+                }))
+                .flatMap(saved -> publish(new TravelPackageEvent.Created(saved.getId(), name, passengerCapacity, Instant.now()))
+                        .thenReturn(saved));
+    }
+
+    public Mono<Activity> createActivity(String name, String description, double cost, int capacity, String destinations) {
+        return activityRepository.save(new Activity(name, description, cost, capacity, destinations))
+                .flatMap(activity -> track(activity).thenReturn(activity));
+    }
+
+    public Mono<Destination> createDestination(String name) {
+        return destinationRepository.save(new Destination(name));
+    }
+
+    public Mono<TravelPackage> addDestinationToTravelPackage(String travelPackageId, Destination destination) {
+        return findRawPackage(travelPackageId, "_id")
+                .flatMap(travelPackage -> {
+                    destination.setTravelPackageID(travelPackageId);
+                    if (destination.getActivities() == null) {
+                        destination.setActivities(new ArrayList<>());
+                    }
+                    return destinationRepository.save(destination);
+                })
+                .flatMap(saved -> mongoTemplate.updateFirst(query(where("_id").is(travelPackageId)),
+                        TravelDocuments.touch(new Update().push("itinerary", saved)), TravelPackage.class))
+                .then(publish(new TravelPackageEvent.Restructured(travelPackageId, Instant.now())))
+                .then(getTravelPackageById(travelPackageId))
+                .doOnNext(travelPackage -> TravelPackageService.evictPackage(cacheManager, travelPackageId, travelPackage.getName()));
+    }
+
+    public Mono<TravelPackage> addPassengerToTravelPackage(String travelPackageId, Passenger passenger) {
+        return findRawPackage(travelPackageId, "passengerCapacity", "passengers")
+                .flatMap(travelPackage -> {
+                    List<String> passengerIds = TravelDocuments.passengerIds(travelPackage);
+                    int passengerCapacity = travelPackage.getInteger("passengerCapacity", 0);
+                    if (passengerIds.size() >= passengerCapacity) {
+                        return Mono.error(new TravelException("Travel Package is already at full capacity"));
+                    }
+
+                    Query sameNumber = query(where("_id").in(passengerIds).and("passengerNumber").is(passenger.getPassengerNumber()));
+                    return mongoTemplate.exists(sameNumber, Passenger.class).flatMap(exists -> exists
+                            ? Mono.error(new TravelException("Passenger with the same number already exists"))
+                            : passengerRepository.save(passenger).flatMap(saved -> appendPassenger(travelPackageId, passengerCapacity, saved)));
+                })
+                .flatMap(saved -> publish(new TravelPackageEvent.PassengerAdded(travelPackageId, saved.getId(), Instant.now())))
+                .then(getTravelPackageById(travelPackageId))
+                .doOnNext(travelPackage -> TravelPackageService.evictPackage(cacheManager, travelPackageId, travelPackage.getName()));
+    }
+
+    // Same writes as TravelPackageService: insert, then in-place pushes, duplicates rejected by the unique index
+    public Mono<Activity> addActivityToDestination(String travelPackageId, String destinationID, Activity activity) {
+        Query destinationQuery = query(where("_id").is(TravelDocuments.asObjectId(destinationID)));
+        destinationQuery.fields().include("name");
+
+        return mongoTemplate.findOne(destinationQuery, Document.class, DESTINATIONS)
+                .switchIfEmpty(Mono.error(new RuntimeException("Destination ID not found or incorrect")))
+                .flatMap(destination -> {
+                    activity.setDestinationName(destination.getString("name"));
+                    activity.setDestinationId(destinationID);
+                    return activityRepository.insert(activity).onErrorMap(DuplicateKeyException.class,
+                            e -> new RuntimeException("Activity '" + activity.getName() + "' is already present in the destination."));
+                })
+                .flatMap(saved -> {
+                    DBRef reference = new DBRef("activities", TravelDocuments.asObjectId(saved.getId()));
+                    Query itineraryQuery = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId))
+                            .and("itinerary._id").is(TravelDocuments.asObjectId(destinationID)));
+                    itineraryQuery.fields().include("name");
+                    return mongoTemplate.findAndModify(itineraryQuery,
+                                    TravelDocuments.touch(new Update().push("itinerary.$.activities", reference)), Document.class, TRAVEL_PACKAGES)
+                            .flatMap(travelPackage -> mongoTemplate.updateFirst(destinationQuery, new Update().push("activities", reference), DESTINATIONS)
+                                    .then(track(saved))
+                                    .then(publish(new TravelPackageEvent.ActivityAdded(travelPackageId, saved, Instant.now())))
+                                    .doOnSuccess(done -> TravelPackageService.evictPackage(cacheManager, travelPackageId, travelPackage.getString("name")))
+                                    .thenReturn(saved))
+                            .switchIfEmpty(Mono.defer(() -> activityRepository.deleteById(saved.getId())
+                                    .then(Mono.error(new RuntimeException("Destination not found in the travel package")))));
+                });
+    }
+
+    public Mono<HttpStatus> signUpForActivity(String travelPackageId, String passengerId, String activityID) {
+        return findRawPackage(travelPackageId, "name", "itinerary")
+                .flatMap(travelPackage -> {
+                    if (!TravelDocuments.itineraryActivityIds(travelPackage).contains(activityID)) {
+                        return Mono.error(new NotFoundException("Activity for this package", "ID: " + activityID));
+                    }
+                    return Mono.zip(
+                            passengerRepository.findById(passengerId)
+                                    .switchIfEmpty(Mono.error(new NotFoundException("Passenger for this package", " ID: " + passengerId))),
+                            activityRepository.findById(activityID)
+                                    .switchIfEmpty(Mono.error(new NotFoundException("Activity for this package", "ID: " + activityID))))
+                            .flatMap(loaded -> signUp(travelPackageId, travelPackage.getString("name"), loaded.getT1(), loaded.getT2()));
+                });
+    }
+
+    private Mono<HttpStatus> signUp(String travelPackageId, String travelPackageName, Passenger passenger, Activity activity) {
+        return Mono.defer(() -> {
+            if (passenger.getSignedUpActivities() == null) {
+                passenger.setSignedUpActivities(new ArrayList<>());
+            }
+            double balanceBefore = passenger.getBalance();
+            passenger.addSignedUpActivity(activity);
+            double charged = balanceBefore - passenger.getBalance();
+
+            return reserveSeat(activity).flatMap(reserved -> {
+                if (!reserved) {
+                    return Mono.just(HttpStatus.CONFLICT);
+                }
+                return chargePassenger(passenger.getId(), activity, charged).flatMap(paid -> paid
+                        ? mongoTemplate.updateFirst(query(where("_id").is(TravelDocuments.asObjectId(travelPackageId))),
+                                        TravelDocuments.touch(), TRAVEL_PACKAGES)
+                                .doOnSuccess(result -> TravelPackageService.evictSignUp(cacheManager, travelPackageId, travelPackageName, passenger.getId()))
+                                .then(publish(new TravelPackageEvent.SignedUp(travelPackageId, activity.getId(), 1, charged, Instant.now())))
+                                .thenReturn(HttpStatus.OK)
+                        : releaseSeat(activity.getId()).then(Mono.error(new TravelException("Insufficient balance for the passenger"))));
+            });
+        });
+    }
+
+    // Same guarded counter updates as ActivitySeatService, seeded from the passengers collection on first use
+    private Mono<Boolean> reserveSeat(Activity activity) {
+        return takeSeat(activity.getId()).flatMap(taken -> {
+            if (taken) {
+                return Mono.just(true);
+            }
+            return mongoTemplate.exists(query(where("_id").is(activity.getId())), ActivityEnrollment.class).flatMap(tracked -> tracked
+                    ? Mono.just(false)
+                    : countEnrolled(activity.getId())
+                            .flatMap(enrolled -> seed(activity, enrolled))
+                            .then(takeSeat(activity.getId())));
+        });
+    }
+
+    private Mono<Boolean> takeSeat(String activityId) {
+        return mongoTemplate.updateFirst(ActivitySeatService.takeSeatsQuery(activityId, 1), ActivitySeatService.takeSeatsUpdate(1),
+                ActivityEnrollment.class).map(result -> result.getModifiedCount() == 1);
+    }
+
+    private Mono<Void> releaseSeat(String activityId) {
+        return mongoTemplate.updateFirst(ActivitySeatService.releaseSeatsQuery(activityId, 1), ActivitySeatService.releaseSeatsUpdate(1),
+                ActivityEnrollment.class).then();
+    }
+
+    private Mono<Void> track(Activity activity) {
+        return seed(activity, 0);
+    }
+
+    private Mono<Void> seed(Activity activity, long enrolled) {
+        return mongoTemplate.insert(ActivitySeatService.enrollment(activity, (int) enrolled))
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Long> countEnrolled(String activityId) {
+        return mongoTemplate.count(query(where("signedUpActivities.activityId").is(TravelDocuments.asObjectId(activityId))), "passengers");
+    }
+
+    private Mono<Boolean> chargePassenger(String passengerId, Activity activity, double charged) {
+        return mongoTemplate.updateFirst(TravelPackageService.chargeQuery(passengerId, charged),
+                TravelPackageService.chargeUpdate(activity.getId(), charged), Passenger.class).map(result -> result.getModifiedCount() == 1);
+    }
+
+    // The listeners write the read models through the blocking driver, so they run off the event loop
+    private Mono<Void> publish(TravelPackageEvent event) {
+        return Mono.fromRunnable(() -> eventPublisher.publishEvent(event)).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    // Appends the passenger only while the array is shorter than the capacity, so concurrent adds cannot overfill the package
+    private Mono<Passenger> appendPassenger(String travelPackageId, int passengerCapacity, Passenger passenger) {
+        Query query = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId))
+                .and("passengers." + (passengerCapacity - 1)).exists(false));
+        Update update = TravelDocuments.touch(new Update().push("passengers", new DBRef("passengers", TravelDocuments.asObjectId(passenger.getId()))));
+        return mongoTemplate.updateFirst(query, update, TRAVEL_PACKAGES).flatMap(result -> result.getModifiedCount() == 1
+                ? Mono.just(passenger)
+                : passengerRepository.delete(passenger).then(Mono.error(new TravelException("Travel Package is already at full capacity"))));
+    }
+
+    private Mono<Document> findRawPackage(String travelPackageId, String... fields) {
+        Query query = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId)));
+        query.fields().include(fields);
+        return mongoTemplate.findOne(query, Document.class, TRAVEL_PACKAGES)
+                .switchIfEmpty(Mono.error(new NotFoundException("Travel Package", "ID: " + travelPackageId)));
+    }
+
+    private Mono<TravelPackage> toTravelPackage(Document travelPackage) {
+        return toTravelPackage(travelPackage, true);
+    }
+
+    // Listed packages keep passengers null, the same as the servlet list views
+    private Mono<TravelPackage> toListedTravelPackage(Document travelPackage) {
+        return toTravelPackage(travelPackage, false);
+    }
+
+    private Mono<TravelPackage> toTravelPackage(Document travelPackage, boolean withPassengers) {
+        List<String> passengerIds = withPassengers ? TravelDocuments.passengerIds(travelPackage) : List.of();
+        Mono<Map<String, Passenger>> passengers = passengerIds.isEmpty() ? Mono.just(Map.of())
+                : passengerRepository.findAllById(passengerIds).collectMap(Passenger::getId);
+        Mono<Map<String, Activity>> activities = findActivitiesById(TravelDocuments.itineraryActivityIds(travelPackage));
+
+        return Mono.zip(passengers, activities).map(loaded -> {
+            List<Passenger> orderedPassengers = withPassengers ? new ArrayList<>() : null;
+            for (String passengerId : passengerIds) {
+                Passenger passenger = loaded.getT1().get(passengerId);
+                if (passenger != null) {
+                    orderedPassengers.add(passenger);
+                }
+            }
+            PackageVersion version = TravelDocuments.packageVersion(travelPackage);
+            return new TravelPackage(travelPackage.get("_id").toString(), travelPackage.getString("name"),
+                    travelPackage.getInteger("passengerCapacity", 0), TravelDocuments.itinerary(travelPackage, loaded.getT2()),
+                    orderedPassengers, version.getVersion(), version.getLastModified());
+        });
+    }
+
+    private Mono<Map<String, Activity>> findActivitiesById(Collection<String> activityIds) {
+        return activityRepository.findAllById(activityIds).collectMap(Activity::getId);
+    }
+
+    private Mono<Map<String, Integer>> findSeatsRemaining(Collection<String> activityIds) {
+        return mongoTemplate.find(query(where("_id").in(activityIds)), ActivityEnrollment.class)
+                .collectMap(ActivityEnrollment::getActivityId, ActivityEnrollment::getSeatsRemaining);
+    }
+}
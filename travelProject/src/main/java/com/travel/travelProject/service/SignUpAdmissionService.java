@@ -0,0 +1,209 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.Exception.NotFoundException;
+import com.travel.travelProject.Exception.TravelException;
+import com.travel.travelProject.model.GroupSignUpResult;
+import com.travel.travelProject.model.SignUpOutcome;
+import com.travel.travelProject.model.SignUpRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Admits single sign-ups through one queue per activity. Each queue has a single writer that drains what has piled up
+// and signs it up as one best-effort group, so a hot activity costs one package read, one seat update and one bulk
+// charge per batch instead of per request. A full queue rejects at once instead of adding to the wait, and a caller
+// gives up after travel.signup.admission.timeout. A lane is dropped as soon as its writer finds it empty.
+// Batched sign-ups follow GroupSignUpService rather than TravelPackageService.signUpForActivity: the passenger must be on
+// the package (404 otherwise), and a passenger already signed up for the activity gets a 400 instead of being charged
+// again. TRAVEL_SIGNUP_ADMISSION=false keeps the old per-request contract.
+@Slf4j
+@Service
+public class SignUpAdmissionService {
+
+    private final TravelPackageService travelPackageService;
+    private final GroupSignUpService groupSignUpService;
+    private final TravelMetrics travelMetrics;
+    private final boolean enabled;
+    private final int queueDepth;
+    private final int maxBatch;
+    private final Duration timeout;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public SignUpAdmissionService(TravelPackageService travelPackageService, GroupSignUpService groupSignUpService,
+                                  TravelMetrics travelMetrics,
+                                  @Value("${travel.signup.admission.enabled:true}") boolean enabled,
+                                  @Value("${travel.signup.admission.queue-depth:1000}") int queueDepth,
+                                  @Value("${travel.signup.admission.max-batch:100}") int maxBatch,
+                                  @Value("${travel.signup.admission.timeout:10s}") Duration timeout) {
+        this.travelPackageService = travelPackageService;
+        this.groupSignUpService = groupSignUpService;
+        this.travelMetrics = travelMetrics;
+        this.enabled = enabled;
+        this.queueDepth = queueDepth;
+        this.maxBatch = maxBatch;
+        this.timeout = timeout;
+    }
+
+    // OK or CONFLICT when sold out, NotFoundException or TravelException as in GroupSignUpService's outcomes, plus
+    // TOO_MANY_REQUESTS when the activity's queue is full and SERVICE_UNAVAILABLE when the sign-up was not written in time
+    public HttpStatus signUp(String travelPackageId, String passengerId, String activityId) {
+        if (!enabled) {
+            return travelPackageService.signUpForActivity(travelPackageId, passengerId, activityId);
+        }
+        // Ids that can't name an activity never get a lane
+        if (activityId == null || !ObjectId.isValid(activityId)) {
+            throw new NotFoundException("Activity", "ID: " + activityId);
+        }
+
+        Ticket ticket = new Ticket(travelPackageId, new SignUpRequest(passengerId, activityId), new CompletableFuture<>());
+        Lane lane = lanes.computeIfAbsent(activityId, Lane::new);
+        if (!lane.queue.offer(ticket)) {
+            return HttpStatus.TOO_MANY_REQUESTS;
+        }
+        lane.schedule();
+
+        SignUpOutcome outcome;
+        try {
+            outcome = ticket.outcome.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                // Still queued it is never written; already in a batch it may still go through. A ticket handed over
+                // from a dropped lane waits in the lane that replaced it.
+                Lane current = lanes.get(activityId);
+                if (!lane.queue.remove(ticket) && current != null) {
+                    current.queue.remove(ticket);
+                }
+                return HttpStatus.SERVICE_UNAVAILABLE;
+            }
+            if (e.getCause() instanceof RejectedExecutionException) {
+                return HttpStatus.TOO_MANY_REQUESTS;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return switch (outcome.getStatus()) {
+            case SIGNED_UP -> HttpStatus.OK;
+            case SOLD_OUT -> HttpStatus.CONFLICT;
+            case NOT_FOUND -> throw new NotFoundException("Passenger or activity for this package",
+                    "IDs: " + passengerId + ", " + activityId);
+            case INSUFFICIENT_BALANCE -> throw new TravelException("Insufficient balance for the passenger");
+            case INVALID_PASSENGER -> throw new TravelException("Invalid passenger type");
+            case ALREADY_SIGNED_UP -> throw new TravelException("Passenger is already signed up for this activity");
+            case NOT_ATTEMPTED -> throw new TravelException("Sign-up was not attempted");
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+    }
+
+    private record Ticket(String travelPackageId, SignUpRequest request, CompletableFuture<SignUpOutcome> outcome) {
+    }
+
+    private final class Lane {
+
+        private final String activityId;
+        private final BlockingQueue<Ticket> queue = new LinkedBlockingQueue<>(queueDepth);
+        private final AtomicBoolean writing = new AtomicBoolean();
+
+        Lane(String activityId) {
+            this.activityId = activityId;
+        }
+
+        // Starts the writer unless one is already draining this lane
+        void schedule() {
+            if (writing.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    writing.set(false);
+                    List<Ticket> rejected = new ArrayList<>();
+                    queue.drainTo(rejected);
+                    fail(rejected, new TravelException("Sign-ups are shutting down"));
+                }
+            }
+        }
+
+        private void drain() {
+            if (!claim()) {
+                return;
+            }
+            List<Ticket> batch = new ArrayList<>(Math.min(maxBatch, queueDepth));
+            while (true) {
+                queue.drainTo(batch, maxBatch);
+                if (batch.isEmpty()) {
+                    // Idle lanes are dropped so the map only holds activities with sign-ups in flight
+                    lanes.remove(activityId, this);
+                    writing.set(false);
+                    // A ticket offered after the drain but before the flag was cleared would otherwise wait forever
+                    if (queue.isEmpty() || !writing.compareAndSet(false, true) || !claim()) {
+                        return;
+                    }
+                    continue;
+                }
+                write(batch);
+                batch.clear();
+            }
+        }
+
+        // A lane only writes while it is the one in the map, and only its own writer removes it, so an activity never has
+        // two writers. A caller still holding a dropped lane offers to it and starts its writer, which puts the lane back
+        // or, when a new lane already took its place, hands the tickets over to that one and stops.
+        private boolean claim() {
+            Lane current = lanes.compute(activityId, (id, lane) -> lane == null ? this : lane);
+            if (current == this) {
+                return true;
+            }
+            do {
+                List<Ticket> handedOver = new ArrayList<>();
+                queue.drainTo(handedOver);
+                for (Ticket ticket : handedOver) {
+                    if (!current.queue.offer(ticket)) {
+                        ticket.outcome().completeExceptionally(new RejectedExecutionException("Sign-up queue is full"));
+                    }
+                }
+                writing.set(false);
+            } while (!queue.isEmpty() && writing.compareAndSet(false, true));
+            current.schedule();
+            return false;
+        }
+
+        // An activity belongs to one package, but tickets naming another package are kept apart rather than trusted
+        private void write(List<Ticket> batch) {
+            Map<String, List<Ticket>> byPackage = new LinkedHashMap<>();
+            for (Ticket ticket : batch) {
+                byPackage.computeIfAbsent(ticket.travelPackageId(), id -> new ArrayList<>()).add(ticket);
+            }
+            for (Map.Entry<String, List<Ticket>> entry : byPackage.entrySet()) {
+                List<Ticket> tickets = entry.getValue();
+                try {
+                    GroupSignUpResult result = groupSignUpService.signUp(entry.getKey(), GroupSignUpService.Mode.BEST_EFFORT,
+                            tickets.stream().map(Ticket::request).toList());
+                    travelMetrics.recordSignUpBatch(tickets.size());
+                    for (int i = 0; i < tickets.size(); i++) {
+                        tickets.get(i).outcome().complete(result.getResults().get(i));
+                    }
+                } catch (RuntimeException e) {
+                    log.debug("Sign-up batch for package {} failed", entry.getKey(), e);
+                    fail(tickets, e);
+                }
+            }
+        }
+
+        private void fail(List<Ticket> tickets, RuntimeException e) {
+            tickets.forEach(ticket -> ticket.outcome().completeExceptionally(e));
+        }
+    }
+}
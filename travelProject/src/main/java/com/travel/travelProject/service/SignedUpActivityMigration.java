@@ -0,0 +1,121 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.MongoException;
+import com.travel.travelProject.model.Passenger;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Rewrites passengers stored with embedded Activity copies in signedUpActivities into {activityId, pricePaid} bookings.
+// Runs in place on startup and only reads passengers that still hold an old entry, so it is a no-op once done.
+@Slf4j
+@Service
+public class SignedUpActivityMigration {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String LEGACY_INDEX = "signedUpActivities_id";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${travel.migrations.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public SignedUpActivityMigration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int migrated = migrate();
+            if (migrated > 0) {
+                log.info("Migrated signed-up activities of {} passengers to bookings", migrated);
+            }
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not migrate signed-up activities: {}", e.getMessage());
+        }
+    }
+
+    public int migrate() {
+        Query legacyPassengers = query(where("signedUpActivities._id").exists(true));
+        legacyPassengers.fields().include("type", "signedUpActivities");
+        String collection = mongoTemplate.getCollectionName(Passenger.class);
+
+        int migrated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        try (Stream<Document> passengers = mongoTemplate.stream(legacyPassengers, Document.class, collection)) {
+            for (Document passenger : (Iterable<Document>) passengers::iterator) {
+                List<Object> signedUpActivities = passenger.getList("signedUpActivities", Object.class);
+                // Guarded on the array read here, a sign-up landing in between leaves the passenger for the next run
+                bulk.updateOne(query(where("_id").is(passenger.get("_id")).and("signedUpActivities").is(signedUpActivities)),
+                        new Update().set("signedUpActivities", toBookings(passenger.getString("type"), signedUpActivities)));
+                if (++migrated % BATCH_SIZE == 0) {
+                    bulk.execute();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                }
+            }
+        }
+        if (migrated % BATCH_SIZE != 0) {
+            bulk.execute();
+        }
+
+        IndexOperations indexOperations = mongoTemplate.indexOps(Passenger.class);
+        if (indexOperations.getIndexInfo().stream().anyMatch(index -> LEGACY_INDEX.equals(index.getName()))) {
+            indexOperations.dropIndex(LEGACY_INDEX);
+        }
+        return migrated;
+    }
+
+    // Old entries were full activities, the price paid is recomputed from the passenger type. Bookings are kept as they are.
+    static List<Document> toBookings(String type, List<Object> signedUpActivities) {
+        Passenger.PassengerType passengerType = passengerType(type);
+        List<Document> bookings = new ArrayList<>();
+        for (Object entry : signedUpActivities) {
+            if (!(entry instanceof Document document)) {
+                continue;
+            }
+            if (document.containsKey("activityId")) {
+                bookings.add(document);
+            } else {
+                Number cost = document.get("cost", Number.class);
+                bookings.add(new Document("activityId", document.get("_id"))
+                        .append("pricePaid", passengerType.priceOf(cost != null ? cost.doubleValue() : 0)));
+            }
+        }
+        return bookings;
+    }
+
+    // Passengers without a type, or with one this version no longer knows, are priced as standard rather than stopping startup
+    private static Passenger.PassengerType passengerType(String type) {
+        if (type == null) {
+            return Passenger.PassengerType.STANDARD;
+        }
+        try {
+            return Passenger.PassengerType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown passenger type '{}', pricing its signed-up activities as {}", type, Passenger.PassengerType.STANDARD);
+            return Passenger.PassengerType.STANDARD;
+        }
+    }
+}
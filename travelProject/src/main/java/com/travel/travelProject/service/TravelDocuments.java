@@ -0,0 +1,83 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.DBRef;
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.Destination;
+import com.travel.travelProject.model.PackageVersion;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+
+// Helpers for reading raw travel package documents without letting the converter resolve their references
+public final class TravelDocuments {
+
+    private TravelDocuments() {
+    }
+
+    // Untyped queries and range operators are not id-converted by the query mapper
+    public static Object asObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    // Activities in an itinerary are stored as references, older documents may still embed them
+    public static String referencedId(Object reference) {
+        Object id = reference instanceof DBRef ref ? ref.getId() : ((Document) reference).get("_id");
+        return id.toString();
+    }
+
+    public static List<String> referencedIds(List<Object> references) {
+        List<String> ids = new ArrayList<>();
+        for (Object reference : references) {
+            ids.add(referencedId(reference));
+        }
+        return ids;
+    }
+
+    public static Set<String> itineraryActivityIds(Document travelPackage) {
+        Set<String> activityIds = new LinkedHashSet<>();
+        for (Document destination : travelPackage.getList("itinerary", Document.class, List.of())) {
+            activityIds.addAll(referencedIds(destination.getList("activities", Object.class, List.of())));
+        }
+        return activityIds;
+    }
+
+    public static List<String> passengerIds(Document travelPackage) {
+        return referencedIds(travelPackage.getList("passengers", Object.class, List.of()));
+    }
+
+    // Rebuilds the itinerary from the raw document, taking the activities from the ones already loaded in one batch
+    public static List<Destination> itinerary(Document travelPackage, Map<String, Activity> activitiesById) {
+        List<Destination> itinerary = new ArrayList<>();
+        for (Document destination : travelPackage.getList("itinerary", Document.class, List.of())) {
+            List<Activity> activities = new ArrayList<>();
+            for (Object activity : destination.getList("activities", Object.class, List.of())) {
+                Activity resolved = activitiesById.get(referencedId(activity));
+                if (resolved != null) {
+                    activities.add(resolved);
+                }
+            }
+            itinerary.add(new Destination(String.valueOf(destination.get("_id")), destination.getString("name"),
+                    activities, destination.getString("travelPackageID")));
+        }
+        return itinerary;
+    }
+
+    // Every in-place write to a package, or to the bookings of its passengers, bumps the version stamp
+    public static Update touch(Update update) {
+        return update.inc("version", 1).currentDate("lastModified");
+    }
+
+    public static Update touch() {
+        return touch(new Update());
+    }
+
+    // Packages written before the stamp existed read as version 0 without a modification date
+    public static PackageVersion packageVersion(Document travelPackage) {
+        Number version = travelPackage.get("version", Number.class);
+        Date lastModified = travelPackage.getDate("lastModified");
+        return new PackageVersion(travelPackage.get("_id").toString(), version == null ? 0 : version.longValue(),
+                lastModified == null ? null : lastModified.toInstant());
+    }
+}
@@ -0,0 +1,131 @@
+package com.travel.travelProject.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Domain metrics: sign-up outcomes, remaining seats over all travel packages (and optionally for the fullest ones),
+// the hit ratio of the lookup caches and the time spent updating the availability read model
+@Slf4j
+@Component
+public class TravelMetrics {
+
+    public static final String SIGNUP_SUCCESS = "success";
+    public static final String SIGNUP_CONFLICT = "conflict";
+    public static final String SIGNUP_NOT_FOUND = "not_found";
+    public static final String SIGNUP_REJECTED = "rejected";
+    public static final String SIGNUP_QUEUE_FULL = "queue_full";
+    public static final String SIGNUP_TIMEOUT = "timeout";
+
+    private final MeterRegistry meterRegistry;
+    private final MongoTemplate mongoTemplate;
+    private final int topPackages;
+    private final AtomicLong totalRemainingCapacity = new AtomicLong();
+    private final AtomicLong fullPackages = new AtomicLong();
+    private final MultiGauge remainingCapacity;
+
+    @Autowired
+    public TravelMetrics(MeterRegistry meterRegistry, MongoTemplate mongoTemplate, CacheManager cacheManager,
+                         @Value("${travel.metrics.capacity-top-packages:0}") int topPackages) {
+        this.meterRegistry = meterRegistry;
+        this.mongoTemplate = mongoTemplate;
+        this.topPackages = topPackages;
+        Gauge.builder("travel.packages.remaining.capacity", totalRemainingCapacity, AtomicLong::get)
+                .description("Passenger places left over all travel packages")
+                .register(meterRegistry);
+        Gauge.builder("travel.packages.full", fullPackages, AtomicLong::get)
+                .description("Travel packages without a passenger place left")
+                .register(meterRegistry);
+        // One series per package would grow with the catalog, so only the fullest packages get one, and only on request
+        this.remainingCapacity = MultiGauge.builder("travel.package.remaining.capacity")
+                .description("Passenger places left in the travel packages closest to full")
+                .register(meterRegistry);
+
+        for (String cacheName : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(cacheName) instanceof CaffeineCache caffeineCache) {
+                Gauge.builder("travel.cache.hit.ratio", caffeineCache, cache -> cache.getNativeCache().stats().hitRate())
+                        .description("Share of cache lookups served without a database read")
+                        .tag("cache", cacheName)
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    public void recordSignUp(String outcome) {
+        meterRegistry.counter("travel.signups", "outcome", outcome).increment();
+    }
+
+    // Sign-ups written together by an activity's admission queue
+    public void recordSignUpBatch(int size) {
+        meterRegistry.summary("travel.signup.batch.size").record(size);
+    }
+
+    // Time from a stored write to its change showing in the availability read model. The read model is updated by a
+    // synchronous listener before the write request returns, so this is the time the update adds to that request rather
+    // than a replication lag: readers never see the read model behind a write that has answered.
+    public void recordAvailabilityUpdate(Duration elapsed) {
+        meterRegistry.timer("travel.availability.update").record(elapsed);
+    }
+
+    // Capacity changes with every added passenger, so it is recomputed on a schedule instead of on each scrape.
+    // The totals come back from the database as a single document, the fullest packages as at most topPackages.
+    @Scheduled(fixedDelayString = "${travel.metrics.capacity-refresh-ms:30000}")
+    public void refreshRemainingCapacity() {
+        try {
+            Document totals = mongoTemplate.aggregate(newAggregation(remaining(),
+                            group().sum("remaining").as("remaining")
+                                    .sum(ConditionalOperators.when(where("remaining").lte(0)).then(1).otherwise(0)).as("full")),
+                    "travelPackages", Document.class).getUniqueMappedResult();
+            totalRemainingCapacity.set(totals != null ? totals.get("remaining", Number.class).longValue() : 0);
+            fullPackages.set(totals != null ? totals.get("full", Number.class).longValue() : 0);
+
+            if (topPackages > 0) {
+                List<MultiGauge.Row<?>> rows = mongoTemplate.aggregate(newAggregation(remaining(),
+                                sort(Sort.Direction.ASC, "remaining"), limit(topPackages)), "travelPackages", Document.class)
+                        .getMappedResults().stream()
+                        .<MultiGauge.Row<?>>map(travelPackage -> MultiGauge.Row.of(
+                                Tags.of("package", String.valueOf(travelPackage.getString("name"))),
+                                travelPackage.get("remaining", Number.class)))
+                        .toList();
+                remainingCapacity.register(rows, true);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh remaining package capacity: {}", e.getMessage());
+        }
+    }
+
+    private static ProjectionOperation remaining() {
+        return project("name")
+                .and(ArithmeticOperators.Subtract.valueOf("passengerCapacity")
+                        .subtract(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("passengers").then(List.of()))))
+                .as("remaining");
+    }
+}
@@ -1,28 +1,54 @@
 package com.travel.travelProject.service;
 
+import com.mongodb.DBRef;
+import com.mongodb.ReadPreference;
 import com.travel.travelProject.Exception.NotFoundException;
 import com.travel.travelProject.Exception.TravelException;
+import com.travel.travelProject.config.ReadRouting;
+import com.travel.travelProject.event.TravelPackageEvent;
 import com.travel.travelProject.model.*;
 import com.travel.travelProject.repository.ActivityRepository;
 import com.travel.travelProject.repository.DestinationRepository;
 import com.travel.travelProject.repository.PassengerRepository;
 import com.travel.travelProject.repository.TravelPackageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 @Service
 public class TravelPackageService {
 
-    private final MongoTemplate mongoTemplate;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int STREAM_BATCH_SIZE = 100;
 
     @Autowired
-    public TravelPackageService(MongoTemplate mongoTemplate) {
-        this.mongoTemplate = mongoTemplate;
-    }
+    private MongoTemplate mongoTemplate;
 
     @Autowired
     private TravelPackageRepository travelPackageRepository;
@@ -36,101 +62,217 @@ public class TravelPackageService {
     @Autowired
     private DestinationRepository destinationRepository;
 
+    @Autowired
+    private ActivitySeatService activitySeatService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PackageAvailabilityService packageAvailabilityService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    // The catalog reads below go where readRouting sends them, a secondary unless the client has just written.
+    // The list views leave out the passengers, resolving their references would cost one read per passenger per package;
+    // they are served by passengerList.
     public List<TravelPackage> getAllTravelPackages() {
-        return travelPackageRepository.findAll();
+        return mongoTemplate.find(catalogQuery(), TravelPackage.class);
+    }
+
+    // Keyset pagination on _id, so each page costs the same however deep the client has paged
+    public TravelPackagePage getTravelPackagePage(String after, int pageSize) {
+        int limit = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        Query query = catalogQuery().with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit + 1);
+        if (after != null && !after.isEmpty()) {
+            query.addCriteria(where("_id").gt(TravelDocuments.asObjectId(after)));
+        }
+
+        List<TravelPackage> travelPackages = mongoTemplate.find(query, TravelPackage.class);
+        if (travelPackages.size() <= limit) {
+            return new TravelPackagePage(travelPackages, null);
+        }
+        List<TravelPackage> page = travelPackages.subList(0, limit);
+        return new TravelPackagePage(new ArrayList<>(page), page.get(limit - 1).getId());
     }
 
+    // Reads the packages from a Mongo cursor one batch at a time, the caller must close the stream
+    public Stream<TravelPackage> streamAllTravelPackages() {
+        Query query = catalogQuery().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, TravelPackage.class);
+    }
+
+    private Query catalogQuery() {
+        Query query = new Query().withReadPreference(readRouting.browse());
+        query.fields().exclude("passengers");
+        return query;
+    }
+
+    @Cacheable(cacheNames = "travelPackagesById", unless = "#result == null")
     public TravelPackage getTravelPackageById(String travelPackageId) {
         return travelPackageRepository.findById(travelPackageId).orElse(null);
     }
 
+    @Cacheable(cacheNames = "passengersById", unless = "#result == null")
     public Passenger getPassengerById(String passengerId) {
         return passengerRepository.findById(passengerId).orElse(null);
     }
 
-    public List<Activity> getAvailableActivities(String travelPackageId) {
-        TravelPackage travelPackage = travelPackageRepository.findById(travelPackageId)
-                .orElseThrow(() -> new RuntimeException("Travel Package not found"));
+    // Only this view needs the full activities, they are resolved from the booked ids in one batched read
+    public PassengerDetails getPassengerDetails(Passenger passenger) {
+        return PassengerDetails.of(passenger, findActivitiesById(passenger.getBookedActivityIds()));
+    }
 
-        List<Activity> availableActivities = new ArrayList<>();
-        for (Destination destination : travelPackage.getItinerary()) {
-            List<Activity> activities = Objects.requireNonNull(mongoTemplate.findById(destination.getId(), Destination.class)).getActivities();
-            availableActivities.addAll(activities);
+    // Itinerary with a passenger count, built from one projected package read and one batched activity read.
+    // The passenger references are counted by the database and never resolved.
+    @Cacheable(cacheNames = "itineraries", condition = "@readRouting.secondaryAllowed()", unless = "#result == null")
+    public TravelPackageItinerary getItinerary(String travelPackageId) {
+        Aggregation aggregation = newAggregation(
+                match(where("_id").is(TravelDocuments.asObjectId(travelPackageId))),
+                project("name", "passengerCapacity", "itinerary", "version", "lastModified")
+                        .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("passengers").then(List.of())))
+                        .as("passengerCount"))
+                .withOptions(AggregationOptions.builder().readPreference(readRouting.browse()).build());
+        org.bson.Document travelPackage = mongoTemplate.aggregate(aggregation, "travelPackages", org.bson.Document.class)
+                .getUniqueMappedResult();
+        if (travelPackage == null) {
+            return null;
         }
 
-        return availableActivities;
+        Map<String, Activity> activitiesById = findActivitiesById(TravelDocuments.itineraryActivityIds(travelPackage), readRouting.browse());
+        List<Destination> itinerary = TravelDocuments.itinerary(travelPackage, activitiesById);
+
+        PackageVersion version = TravelDocuments.packageVersion(travelPackage);
+        return new TravelPackageItinerary(travelPackage.get("_id").toString(), travelPackage.getString("name"),
+                travelPackage.getInteger("passengerCapacity", 0), itinerary, travelPackage.getInteger("passengerCount", 0),
+                version.getVersion(), version.getLastModified());
     }
 
+    // Only the version stamp is read, which is all a conditional GET needs to answer 304
+    public PackageVersion getPackageVersion(String travelPackageId) {
+        return findPackageVersion(where("_id").is(TravelDocuments.asObjectId(travelPackageId)));
+    }
+
+    public PackageVersion getPackageVersionByName(String packageName) {
+        return findPackageVersion(where("name").is(packageName));
+    }
+
+    private PackageVersion findPackageVersion(Criteria criteria) {
+        Query query = query(criteria).withReadPreference(readRouting.browse());
+        query.fields().include("version", "lastModified");
+        org.bson.Document travelPackage = mongoTemplate.findOne(query, org.bson.Document.class, "travelPackages");
+        return travelPackage == null ? null : TravelDocuments.packageVersion(travelPackage);
+    }
+
+    // Lists the activities with seats left from the availability read model, a single document read
+    public List<AvailableActivity> getAvailableActivities(String travelPackageId) {
+        return getAvailability(travelPackageId).getAvailableActivities();
+    }
+
+    public PackageAvailability getAvailability(String travelPackageId) {
+        PackageAvailability availability = packageAvailabilityService.getAvailability(travelPackageId, readRouting.browse());
+        if (availability == null) {
+            throw new NotFoundException("Travel Package", "ID: " + travelPackageId);
+        }
+        return availability;
+    }
+
+    public int rebuildAvailability() {
+        return packageAvailabilityService.rebuildAll();
+    }
+
+    private Map<String, Activity> findActivitiesById(Collection<String> activityIds) {
+        return findActivitiesById(activityIds, ReadPreference.primary());
+    }
 
-    private int calculateAvailableSpaces(TravelPackage travelPackage, Activity activity) {
-        long enrolledPassengersCount = travelPackage.getPassengers().stream()
-                .filter(passenger -> passenger.getSignedUpActivities() != null)
-                .flatMap(passenger -> passenger.getSignedUpActivities().stream())
-                .filter(signedUpActivity -> signedUpActivity.equals(activity))
-                .count();
+    private Map<String, Activity> findActivitiesById(Collection<String> activityIds, ReadPreference readPreference) {
+        Map<String, Activity> activitiesById = new HashMap<>();
+        for (Activity activity : mongoTemplate.find(query(where("_id").in(activityIds)).withReadPreference(readPreference), Activity.class)) {
+            activitiesById.put(activity.getId(), activity);
+        }
+        return activitiesById;
+    }
 
-        return activity.getCapacity() - (int) enrolledPassengersCount;
+    public int rebuildEnrollments() {
+        return activitySeatService.rebuildEnrollments();
     }
 
 
     // Method to add a destination to a travel package
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "travelPackagesById", key = "#travelPackageId"),
+            @CacheEvict(cacheNames = "travelPackagesByName", key = "#result.name"),
+            @CacheEvict(cacheNames = "itineraries", key = "#travelPackageId")
+    })
     public TravelPackage addDestinationToTravelPackage(String travelPackageId, Destination destination) {
         TravelPackage travelPackage = travelPackageRepository.findById(travelPackageId)
                 .orElseThrow(() -> new RuntimeException("Travel Package not found"));
 
         destination.setTravelPackageID(travelPackage.getId());
         travelPackage.addDestination(destination);
+        travelPackage.touch();
         destinationRepository.save(destination);
         travelPackageRepository.save(travelPackage);
+        eventPublisher.publishEvent(new TravelPackageEvent.Restructured(travelPackageId, Instant.now()));
 
         return travelPackage;
     }
 
 
-    public TravelPackage addActivityToDestination(String travelPackageId, String destinationID, Activity activity) {
-        Destination destination = destinationRepository.findById(destinationID)
-                .orElseThrow(() -> new RuntimeException("Destination ID not found or incorrect"));
-
-        // Ensure the activities list is initialized
-        if (destination.getActivities() == null) {
-            destination.setActivities(new ArrayList<>());
+    // One insert and two in-place pushes, so adding an activity costs the same however large the package is.
+    // Duplicate names in a destination are rejected by the unique destinationId_name index on activities.
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "travelPackagesById", key = "#travelPackageId"),
+            @CacheEvict(cacheNames = "itineraries", key = "#travelPackageId")
+    })
+    public Activity addActivityToDestination(String travelPackageId, String destinationID, Activity activity) {
+        Query destinationQuery = query(where("_id").is(destinationID));
+        destinationQuery.fields().include("name");
+        Destination destination = mongoTemplate.findOne(destinationQuery, Destination.class);
+        if (destination == null) {
+            throw new RuntimeException("Destination ID not found or incorrect");
+        }
+        if (destination.getName() == null || destination.getName().isEmpty()) {
+            throw new RuntimeException("Destination name cannot be null or empty");
         }
 
-        if (isActivityAlreadyPresent(destination, activity.getName())) {
+        activity.setDestinationName(destination.getName());
+        activity.setDestinationId(destinationID);
+        try {
+            activityRepository.insert(activity);
+        } catch (DuplicateKeyException e) {
             throw new RuntimeException("Activity '" + activity.getName() + "' is already present in the destination.");
         }
 
-        saveActivity(activity, destination.getName());
-
-        List<Activity> activities = destination.getActivities();
-        activities.add(activity);
-        destination.setActivities(activities);
-        saveDestination(destination, travelPackageId);
-
-        TravelPackage travelPackage = travelPackageRepository.findById(travelPackageId)
-                .orElseThrow(() -> new RuntimeException("Travel Package not found"));
-
-        Destination destinationInPackage = travelPackage.getItinerary().stream()
-                .filter(d -> d.getId().equals(destinationID))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Destination not found in the travel package"));
-
-        // Ensure the activities list is initialized
-        if (destinationInPackage.getActivities() == null) {
-            destinationInPackage.setActivities(new ArrayList<>());
+        DBRef reference = new DBRef("activities", TravelDocuments.asObjectId(activity.getId()));
+        Query itineraryQuery = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId))
+                .and("itinerary._id").is(TravelDocuments.asObjectId(destinationID)));
+        itineraryQuery.fields().include("name");
+        org.bson.Document travelPackage = mongoTemplate.findAndModify(itineraryQuery,
+                TravelDocuments.touch(new Update().push("itinerary.$.activities", reference)), org.bson.Document.class, "travelPackages");
+        if (travelPackage == null) {
+            activityRepository.deleteById(activity.getId());
+            throw new RuntimeException("Destination not found in the travel package");
         }
 
-        destinationInPackage.getActivities().add(activity);
-
-        return travelPackageRepository.save(travelPackage);
-    }
-
-    private boolean isActivityAlreadyPresent(Destination destination, String activityName) {
-        return destination.getActivities().stream()
-                .anyMatch(activity -> activity.getName().equals(activityName));
+        mongoTemplate.updateFirst(query(where("_id").is(destinationID)), new Update().push("activities", reference), Destination.class);
+        activitySeatService.track(activity);
+        eventPublisher.publishEvent(new TravelPackageEvent.ActivityAdded(travelPackageId, activity, Instant.now()));
+        // The name is only known once the package has been matched
+        Objects.requireNonNull(cacheManager.getCache("travelPackagesByName")).evict(travelPackage.getString("name"));
+        return activity;
     }
 
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "travelPackagesById", key = "#travelPackageId"),
+            @CacheEvict(cacheNames = "travelPackagesByName", key = "#result.name"),
+            @CacheEvict(cacheNames = "itineraries", key = "#travelPackageId")
+    })
     public TravelPackage addPassengerToTravelPackage(String travelPackageId, Passenger passenger) {
         TravelPackage travelPackage = travelPackageRepository.findById(travelPackageId)
                 .orElseThrow(() -> new RuntimeException("Travel Package not found"));
@@ -144,60 +286,120 @@ public class TravelPackageService {
         if (travelPackage.getPassengers().size() < travelPackage.getPassengerCapacity()) {
             passengerRepository.save(passenger);
             travelPackage.addPassenger(passenger);
-            return travelPackageRepository.save(travelPackage);
+            travelPackage.touch();
+            TravelPackage saved = travelPackageRepository.save(travelPackage);
+            eventPublisher.publishEvent(new TravelPackageEvent.PassengerAdded(travelPackageId, passenger.getId(), Instant.now()));
+            return saved;
         } else {
             throw new TravelException("Travel Package is already at full capacity");
         }
     }
 
 
-    // Method for a passenger to sign up for an activity
+    // Method for a passenger to sign up for an activity. The package is read as a projection of its name and raw
+    // references, so neither its passengers nor its activities are resolved; only the activity signed up for is loaded.
     public HttpStatus signUpForActivity(String travelPackageId, String passengerId, String activityID) {
-        TravelPackage travelPackage = travelPackageRepository.findById(travelPackageId)
-                .orElseThrow(() -> new NotFoundException("Travel Package", "ID: " + travelPackageId));
+        Query packageQuery = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId)));
+        packageQuery.fields().include("name", "itinerary", "passengers");
+        org.bson.Document travelPackage = mongoTemplate.findOne(packageQuery, org.bson.Document.class, "travelPackages");
+        if (travelPackage == null) {
+            throw new NotFoundException("Travel Package", "ID: " + travelPackageId);
+        }
 
         Passenger passenger = passengerRepository.findById(passengerId)
                 .orElseThrow(() -> new NotFoundException("Passenger for this package", " ID: " + passengerId));
 
-        Activity activity = travelPackage.getItinerary().stream()
-                .flatMap(destination -> destination.getActivities().stream())
-                .filter(a -> a.getId().equals(activityID))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Activity for this package", "ID: " + activityID));
+        Activity activity = TravelDocuments.itineraryActivityIds(travelPackage).contains(activityID)
+                ? mongoTemplate.findById(activityID, Activity.class) : null;
+        if (activity == null) {
+            throw new NotFoundException("Activity for this package", "ID: " + activityID);
+        }
 
         try {
             if (passenger.getSignedUpActivities() == null) {
                 passenger.setSignedUpActivities(new ArrayList<>());
             }
 
-            // Check available spaces before signing up
-            int availableSpaces = calculateAvailableSpaces(travelPackage, activity);
-            if (availableSpaces > 0) {
-                passenger.addSignedUpActivity(activity);
-                passengerRepository.save(passenger);
-                return HttpStatus.OK; // Signup successful
-            } else {
+            // Price the activity for this passenger before taking a seat, so a failed charge never holds one
+            double balanceBefore = passenger.getBalance();
+            passenger.addSignedUpActivity(activity);
+            double charged = balanceBefore - passenger.getBalance();
+
+            ActivitySeatService.Reservation reservation = activitySeatService.reserveSeat(activity,
+                    () -> countEnrollments(TravelDocuments.passengerIds(travelPackage), activityID));
+            if (reservation == ActivitySeatService.Reservation.SOLD_OUT) {
                 return HttpStatus.CONFLICT; // Capacity full, cannot sign up
             }
+
+            if (!chargePassenger(passengerId, activity, charged)) {
+                activitySeatService.releaseSeat(activity.getId());
+                throw new TravelException("Insufficient balance for the passenger");
+            }
+            // The booking shows in the passenger list, so it is a new version of the package
+            mongoTemplate.updateFirst(query(where("_id").is(travelPackageId)), TravelDocuments.touch(), TravelPackage.class);
+            // The package is cached under its name too, which is only known after loading it, so evict here instead of by annotation
+            evictSignUp(cacheManager, travelPackageId, travelPackage.getString("name"), passengerId);
+            eventPublisher.publishEvent(new TravelPackageEvent.SignedUp(travelPackageId, activityID, 1, charged, Instant.now()));
+            return HttpStatus.OK; // Signup successful
         } catch (RuntimeException e) {
             throw new RuntimeException(e.getMessage(), e);
         }
     }
 
+    // Seeds a missing seat counter: the package's passengers already booked on the activity, counted by the database
+    private int countEnrollments(List<String> passengerIds, String activityId) {
+        Query query = query(where("_id").in(passengerIds).and("signedUpActivities.activityId").is(activityId));
+        return (int) mongoTemplate.count(query, Passenger.class);
+    }
+
+    // Debits the passenger and records the activity in one guarded update instead of re-saving the whole document
+    private boolean chargePassenger(String passengerId, Activity activity, double charged) {
+        return mongoTemplate.updateFirst(chargeQuery(passengerId, charged), chargeUpdate(activity.getId(), charged), Passenger.class)
+                .getModifiedCount() == 1;
+    }
+
+    static Query chargeQuery(String passengerId, double charged) {
+        return query(where("_id").is(passengerId).and("balance").gte(charged));
+    }
+
+    static Update chargeUpdate(String activityId, double charged) {
+        return new Update().inc("balance", -charged).push("signedUpActivities", new ActivityBooking(activityId, charged));
+    }
+
+    // The caches a sign-up makes stale, ReactiveTravelPackageService evicts the same entries
+    static void evictSignUp(CacheManager cacheManager, String travelPackageId, String travelPackageName, String passengerId) {
+        evictPackage(cacheManager, travelPackageId, travelPackageName);
+        Objects.requireNonNull(cacheManager.getCache("passengersById")).evict(passengerId);
+    }
+
+    static void evictPackage(CacheManager cacheManager, String travelPackageId, String travelPackageName) {
+        Objects.requireNonNull(cacheManager.getCache("travelPackagesById")).evict(travelPackageId);
+        Objects.requireNonNull(cacheManager.getCache("travelPackagesByName")).evict(travelPackageName);
+        Objects.requireNonNull(cacheManager.getCache("itineraries")).evict(travelPackageId);
+    }
+
+    // Cached only when called through the bean, as the controller does
+    @Cacheable(cacheNames = "travelPackagesById")
     public TravelPackage getTravelPackageWithPassengerDetails(String travelPackageId) {
-        return travelPackageRepository.findById(travelPackageId)
-                .orElseThrow(() -> new RuntimeException("Travel Package not found"));
+        return findTravelPackageWithPassengers(travelPackageId);
     }
 
+    // Reads the package directly: called from inside this class, the @Cacheable method above would skip the cache anyway
     public List<Passenger> getPassengersForTravelPackage(String travelPackageId) {
-        TravelPackage travelPackage = getTravelPackageWithPassengerDetails(travelPackageId);
-        return travelPackage.getPassengers();
+        return findTravelPackageWithPassengers(travelPackageId).getPassengers();
+    }
+
+    private TravelPackage findTravelPackageWithPassengers(String travelPackageId) {
+        return travelPackageRepository.findById(travelPackageId)
+                .orElseThrow(() -> new RuntimeException("Travel Package not found"));
     }
 
 
     // Method to fetch a TravelPackage by name
+    @Cacheable(cacheNames = "travelPackagesByName", condition = "@readRouting.secondaryAllowed()", unless = "#result == null")
     public Optional<TravelPackage> getTravelPackageByName(String packageName) {
-        return travelPackageRepository.findByName(packageName);
+        Query query = query(where("name").is(packageName)).withReadPreference(readRouting.browse());
+        return Optional.ofNullable(mongoTemplate.findOne(query, TravelPackage.class));
     }
 
     public void saveActivity(Activity activity, String name) {
@@ -206,6 +408,8 @@ public class TravelPackageService {
             if (name != null && !name.isEmpty()) {
                 activity.setDestinationName(name);
                 activityRepository.save(activity);
+                activitySeatService.track(activity);
+                Objects.requireNonNull(cacheManager.getCache("activitiesById")).evict(activity.getId());
             } else {
                 throw new RuntimeException("Destination name cannot be null or empty");
             }
@@ -218,7 +422,9 @@ public class TravelPackageService {
     public Activity createActivity(String name, String description, double cost, int capacity, String destinations) {
         Activity newActivity = new Activity(name, description, cost, capacity, destinations);
 
-        return activityRepository.save(newActivity);
+        Activity savedActivity = activityRepository.save(newActivity);
+        activitySeatService.track(savedActivity);
+        return savedActivity;
     }
 
     public void saveDestination(Destination destination,String travelPackageID) {
@@ -247,7 +453,10 @@ public class TravelPackageService {
     public TravelPackage createTravelPackage(String name, int passengerCapacity) {
         if (!travelPackageRepository.existsByName(name)) {
             TravelPackage travelPackage = new TravelPackage(name, passengerCapacity);
-            return travelPackageRepository.save(travelPackage);
+            travelPackage.touch();
+            travelPackage = travelPackageRepository.save(travelPackage);
+            eventPublisher.publishEvent(new TravelPackageEvent.Created(travelPackage.getId(), name, passengerCapacity, Instant.now()));
+            return travelPackage;
         } else {
             throw new RuntimeException("A TravelPackage with the name '" + name + "' already exists.");
         }
@@ -0,0 +1,372 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.SearchResult;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory inverted index over package, destination and activity text. Terms are kept sorted, so every query word
+// also matches as a prefix. Searches share a read lock, the short index writes take the write lock. Re-adding an entry
+// leaves its old postings behind; once they make up half of the index it is compacted.
+public class TravelSearchIndex {
+
+    // Where in an entry a term was found: its own name, the name of what it belongs to, or its description
+    private static final int NAME = 1;
+    private static final int CONTEXT = 2;
+    private static final int DESCRIPTION = 4;
+
+    private static final float PREFIX_FACTOR = 0.5f;
+    // Replaced entries below this are never worth a compaction
+    private static final int MIN_COMPACTION = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Doc number -> entry, replaced entries are left as null and skipped until the next compaction
+    private final List<Entry> entries = new ArrayList<>();
+    private int replacedEntries;
+    private final Map<String, Integer> docByKey = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Entry> activitiesById = new HashMap<>();
+
+    public void addPackage(String travelPackageId, String name) {
+        add(new Entry(SearchResult.Type.PACKAGE, travelPackageId, name, null, travelPackageId, null, null, 0));
+    }
+
+    public void addDestination(String destinationId, String name, String travelPackageId, String travelPackageName) {
+        add(new Entry(SearchResult.Type.DESTINATION, destinationId, name, null, travelPackageId, travelPackageName, null, 0));
+    }
+
+    public void addActivity(Activity activity, String travelPackageId, int seatsLeft) {
+        add(new Entry(SearchResult.Type.ACTIVITY, activity.getId(), activity.getName(), activity.getDescription(),
+                travelPackageId, activity.getDestinationName(), activity.getCost(), seatsLeft));
+    }
+
+    public void updateSeatsLeft(String activityId, int change) {
+        lock.writeLock().lock();
+        try {
+            Entry activity = activitiesById.get(activityId);
+            if (activity != null) {
+                activity.seatsLeft += change;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            int doc = entries.size();
+            entries.add(entry);
+            Integer replaced = docByKey.put(entry.key(), doc);
+            if (replaced != null) {
+                entries.set(replaced, null);
+                replacedEntries++;
+            }
+            if (entry.type == SearchResult.Type.ACTIVITY) {
+                activitiesById.put(entry.id, entry);
+            }
+            index(doc, entry);
+            if (replacedEntries >= MIN_COMPACTION && replacedEntries * 2 >= entries.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Renumbers the live entries in their current order and indexes them again, which drops the postings of every
+    // replaced entry and the terms only they had. Doc numbers stay ascending, so postings stay sorted.
+    private void compact() {
+        List<Entry> live = new ArrayList<>(docByKey.size());
+        terms.clear();
+        for (Entry entry : entries) {
+            if (entry != null) {
+                int doc = live.size();
+                live.add(entry);
+                docByKey.put(entry.key(), doc);
+                index(doc, entry);
+            }
+        }
+        entries.clear();
+        entries.addAll(live);
+        replacedEntries = 0;
+    }
+
+    // Doc numbers held by the index, live or replaced
+    int docCount() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(int doc, Entry entry) {
+        index(doc, entry.name, NAME);
+        index(doc, entry.context, CONTEXT);
+        index(doc, entry.description, DESCRIPTION);
+    }
+
+    private void index(int doc, String text, int field) {
+        for (String term : tokenize(text)) {
+            terms.computeIfAbsent(term, t -> new Postings()).add(doc, field);
+        }
+    }
+
+    // Every query word has to match an entry, exactly or as a prefix. The score adds up the best match of each word,
+    // weighted by where it was found. Cost and seat filters only apply to activities, so they exclude everything else.
+    public List<SearchResult> search(String text, SearchResult.Type type, Double minCost, Double maxCost,
+                                     Integer minSeats, int limit) {
+        List<String> words = tokenize(text);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean activitiesOnly = minCost != null || maxCost != null || minSeats != null;
+
+        lock.readLock().lock();
+        try {
+            // The rarest word picks the candidates, the other words only score or drop them, so the work and the
+            // scratch arrays follow the number of matches instead of the size of the catalog
+            List<Collection<Map.Entry<String, Postings>>> matchingTerms = new ArrayList<>();
+            for (String word : words) {
+                matchingTerms.add(matchingTerms(word));
+            }
+            List<Integer> order = new ArrayList<>();
+            for (int w = 0; w < words.size(); w++) {
+                order.add(w);
+            }
+            order.sort(Comparator.comparingInt(w -> postingCount(matchingTerms.get(w))));
+
+            int capacity = postingCount(matchingTerms.get(order.get(0)));
+            if (capacity == 0) {
+                return List.of();
+            }
+            DocSlots slots = new DocSlots(capacity);
+            int[] docs = new int[capacity];
+            float[] scores = new float[capacity];
+            float[] best = new float[capacity];
+            // Number of query words matched so far
+            int[] matched = new int[capacity];
+
+            for (int pass = 0; pass < order.size(); pass++) {
+                int w = order.get(pass);
+                for (Map.Entry<String, Postings> term : matchingTerms.get(w)) {
+                    float factor = term.getKey().equals(words.get(w)) ? 1f : PREFIX_FACTOR;
+                    Postings postings = term.getValue();
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        int slot = pass == 0 ? slots.slotOrAdd(doc) : slots.slot(doc);
+                        if (slot < 0) {
+                            continue;
+                        }
+                        docs[slot] = doc;
+                        float score = weight(postings.fields[i]) * factor;
+                        if (matched[slot] == pass) {
+                            matched[slot] = pass + 1;
+                            best[slot] = score;
+                            scores[slot] += score;
+                        } else if (matched[slot] == pass + 1 && score > best[slot]) {
+                            scores[slot] += score - best[slot];
+                            best[slot] = score;
+                        }
+                    }
+                }
+            }
+
+            Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(slot -> -scores[slot])
+                    .thenComparingInt(slot -> entries.get(docs[slot]).name.length())
+                    .thenComparing(slot -> entries.get(docs[slot]).name);
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for (int slot = 0; slot < slots.size(); slot++) {
+                Entry entry = entries.get(docs[slot]);
+                if (matched[slot] != words.size()
+                        || entry == null
+                        || (type != null && entry.type != type)
+                        || (activitiesOnly && entry.type != SearchResult.Type.ACTIVITY)
+                        || (minCost != null && entry.cost < minCost)
+                        || (maxCost != null && entry.cost > maxCost)
+                        || (minSeats != null && entry.seatsLeft < minSeats)) {
+                    continue;
+                }
+                top.add(slot);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<SearchResult> results = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int slot = top.poll();
+                results.add(entries.get(docs[slot]).toResult(scores[slot]));
+            }
+            Collections.reverse(results);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int postingCount(Collection<Map.Entry<String, Postings>> terms) {
+        int count = 0;
+        for (Map.Entry<String, Postings> term : terms) {
+            count += term.getValue().size;
+        }
+        return count;
+    }
+
+    // The exact term first, then every term it is a prefix of. All of them are merged, so no match depends on where its
+    // term sorts; a short word costs its postings, and only the rarest word of a query decides the candidates.
+    private Collection<Map.Entry<String, Postings>> matchingTerms(String word) {
+        return terms.subMap(word, true, word + Character.MAX_VALUE, false).entrySet();
+    }
+
+    private static float weight(int fields) {
+        if ((fields & NAME) != 0) {
+            return 3f;
+        }
+        return (fields & CONTEXT) != 0 ? 2f : 1f;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static class Entry {
+        final SearchResult.Type type;
+        final String id;
+        final String name;
+        final String description;
+        final String travelPackageId;
+        // Destination name for an activity, package name for a destination
+        final String context;
+        final Double cost;
+        int seatsLeft;
+
+        Entry(SearchResult.Type type, String id, String name, String description, String travelPackageId,
+              String context, Double cost, int seatsLeft) {
+            this.type = type;
+            this.id = id;
+            this.name = name == null ? "" : name;
+            this.description = description;
+            this.travelPackageId = travelPackageId;
+            this.context = context;
+            this.cost = cost;
+            this.seatsLeft = seatsLeft;
+        }
+
+        String key() {
+            return type + ":" + id;
+        }
+
+        SearchResult toResult(float score) {
+            boolean activity = type == SearchResult.Type.ACTIVITY;
+            return new SearchResult(type, id, name, description, travelPackageId, activity ? context : null,
+                    cost, activity ? seatsLeft : null, score);
+        }
+    }
+
+    // Open-addressing map from doc number to its slot in the search scratch arrays, slots are handed out in order
+    private static class DocSlots {
+        private final int[] keys;
+        private final int[] values;
+        private final int mask;
+        private int size;
+
+        DocSlots(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 1) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, -1);
+            mask = capacity - 1;
+        }
+
+        int slot(int doc) {
+            for (int i = hash(doc); ; i = (i + 1) & mask) {
+                if (keys[i] == doc) {
+                    return values[i];
+                }
+                if (keys[i] == -1) {
+                    return -1;
+                }
+            }
+        }
+
+        int slotOrAdd(int doc) {
+            for (int i = hash(doc); ; i = (i + 1) & mask) {
+                if (keys[i] == doc) {
+                    return values[i];
+                }
+                if (keys[i] == -1) {
+                    keys[i] = doc;
+                    values[i] = size;
+                    return size++;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private int hash(int doc) {
+            int mixed = doc * 0x9E3779B9;
+            return (mixed ^ mixed >>> 16) & mask;
+        }
+    }
+
+    // Doc numbers in ascending order, with the fields the term was found in
+    private static class Postings {
+        int[] docs = new int[2];
+        byte[] fields = new byte[2];
+        int size;
+
+        void add(int doc, int field) {
+            if (size > 0 && docs[size - 1] == doc) {
+                fields[size - 1] |= (byte) field;
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fields = Arrays.copyOf(fields, size * 2);
+            }
+            docs[size] = doc;
+            fields[size] = (byte) field;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.MongoException;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.travel.travelProject.model.*;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Serves /search from a TravelSearchIndex. The index is built from the database at startup and then kept current
+// from TravelPackageEvents, so searches never touch Mongo.
+@Slf4j
+@Service
+public class TravelSearchService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final ActivitySeatService activitySeatService;
+    private volatile TravelSearchIndex index = new TravelSearchIndex();
+
+    @Value("${travel.search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Autowired
+    public TravelSearchService(MongoTemplate mongoTemplate, ActivitySeatService activitySeatService) {
+        this.mongoTemplate = mongoTemplate;
+        this.activitySeatService = activitySeatService;
+    }
+
+    public List<SearchResult> search(String text, SearchResult.Type type, Double minCost, Double maxCost,
+                                     Integer minSeats, int limit) {
+        return index.search(text, type, minCost, maxCost, minSeats, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        try {
+            log.info("Indexed {} packages, destinations and activities for search", rebuild());
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not build the search index: {}", e.getMessage());
+        }
+    }
+
+    // Builds a new index from the stored data and swaps it in. Writes that land while it runs only reach the old
+    // index, so run it when writes are quiet.
+    public int rebuild() {
+        TravelSearchIndex rebuilt = new TravelSearchIndex();
+        Map<String, String> packageByActivity = new HashMap<>();
+
+        Query packageQuery = new Query();
+        packageQuery.fields().include("name", "itinerary");
+        try (Stream<Document> travelPackages = mongoTemplate.stream(packageQuery, Document.class, "travelPackages")) {
+            for (Document travelPackage : (Iterable<Document>) travelPackages::iterator) {
+                String travelPackageId = String.valueOf(travelPackage.get("_id"));
+                indexPackage(rebuilt, travelPackageId, travelPackage);
+                for (String activityId : TravelDocuments.itineraryActivityIds(travelPackage)) {
+                    packageByActivity.put(activityId, travelPackageId);
+                }
+            }
+        }
+
+        Map<String, Integer> seatsLeft = new HashMap<>();
+        try (Stream<ActivityEnrollment> enrollments = mongoTemplate.stream(new Query(), ActivityEnrollment.class)) {
+            enrollments.forEach(enrollment -> seatsLeft.put(enrollment.getActivityId(), enrollment.getSeatsRemaining()));
+        }
+        try (Stream<Activity> activities = mongoTemplate.stream(new Query(), Activity.class)) {
+            activities.forEach(activity -> rebuilt.addActivity(activity, packageByActivity.get(activity.getId()),
+                    seatsLeft.getOrDefault(activity.getId(), activity.getCapacity())));
+        }
+
+        index = rebuilt;
+        return rebuilt.size();
+    }
+
+    @EventListener
+    public void on(TravelPackageEvent event) {
+        try {
+            apply(event);
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not apply {} to the search index: {}", event.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    private void apply(TravelPackageEvent event) {
+        switch (event) {
+            case TravelPackageEvent.Created created -> index.addPackage(created.travelPackageId(), created.name());
+            case TravelPackageEvent.Imported imported -> {
+                for (TravelPackage travelPackage : imported.travelPackages()) {
+                    index.addPackage(travelPackage.getId(), travelPackage.getName());
+                    for (Destination destination : travelPackage.getItinerary()) {
+                        index.addDestination(destination.getId(), destination.getName(), travelPackage.getId(), travelPackage.getName());
+                        for (Activity activity : destination.getActivities()) {
+                            index.addActivity(activity, travelPackage.getId(), activity.getCapacity());
+                        }
+                    }
+                }
+            }
+            case TravelPackageEvent.Restructured restructured -> reindexPackage(restructured.travelPackageId());
+            case TravelPackageEvent.ActivityAdded added ->
+                    index.addActivity(added.activity(), added.travelPackageId(), added.activity().getCapacity());
+            case TravelPackageEvent.SignedUp signedUp -> index.updateSeatsLeft(signedUp.activityId(), -signedUp.seats());
+            case TravelPackageEvent.PassengerAdded added -> {
+                // Passengers are not searchable
+            }
+        }
+    }
+
+    // Re-adds the package with its destinations and activities, the entries they replace drop out of the results
+    private void reindexPackage(String travelPackageId) {
+        Query packageQuery = query(where("_id").is(TravelDocuments.asObjectId(travelPackageId)));
+        packageQuery.fields().include("name", "itinerary");
+        Document travelPackage = mongoTemplate.findOne(packageQuery, Document.class, "travelPackages");
+        if (travelPackage == null) {
+            return;
+        }
+        indexPackage(index, travelPackageId, travelPackage);
+
+        Set<String> activityIds = TravelDocuments.itineraryActivityIds(travelPackage);
+        List<Activity> activities = mongoTemplate.find(query(where("_id").in(activityIds)), Activity.class);
+        Map<String, Integer> seatsLeft = activitySeatService.availableSpaces(activities);
+        for (Activity activity : activities) {
+            index.addActivity(activity, travelPackageId, seatsLeft.get(activity.getId()));
+        }
+    }
+
+    private static void indexPackage(TravelSearchIndex index, String travelPackageId, Document travelPackage) {
+        String name = travelPackage.getString("name");
+        index.addPackage(travelPackageId, name);
+        for (Document destination : travelPackage.getList("itinerary", Document.class, List.of())) {
+            index.addDestination(String.valueOf(destination.get("_id")), destination.getString("name"), travelPackageId, name);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.travel.travelProject;
+
+import com.travel.travelProject.model.BulkImportResult;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles({"reactive", "inmemory"})
+class ReactiveTravelProjectApplicationTests {
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void contextLoads() {
+	}
+
+	// Endpoints served by the servlet stack's services are reachable on the reactive stack too
+	@Test
+	void bulkImportedPackagesCanBeSearchedAndTheirAvailabilityRead() {
+		BulkImportResult result = webTestClient.post().uri("/travel/bulk/travelPackages")
+				.contentType(MediaType.parseMediaType("application/x-ndjson"))
+				.bodyValue("{\"name\":\"Reactive Bulk Goa\",\"passengerCapacity\":4}\n{\"name\":\"Reactive Bulk Kochi\",\"passengerCapacity\":2}\n")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(BulkImportResult.class).returnResult().getResponseBody();
+		assertEquals(2, result.getImported());
+
+		webTestClient.get().uri("/travel/search?q=Reactive Bulk&type=PACKAGE")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.length()").isEqualTo(2);
+
+		webTestClient.get().uri("/travel/availability/" + new ObjectId().toHexString())
+				.exchange()
+				.expectStatus().isNotFound();
+
+		webTestClient.get().uri("/travel/cacheStats")
+				.exchange()
+				.expectStatus().isOk();
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.travel.travelProject.config;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import com.travel.travelProject.model.Passenger;
+import com.travel.travelProject.model.TravelPackage;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class IndexProvisionerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+
+    private IndexProvisioner indexProvisioner;
+
+    @BeforeEach
+    public void setUp() {
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        indexProvisioner = new IndexProvisioner(mongoTemplate, mappingContext);
+    }
+
+    private static Document plan(String stage, Document inputStage) {
+        Document plan = new Document("stage", stage);
+        if (inputStage != null) {
+            plan.append("inputStage", inputStage);
+        }
+        return plan;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void explainReturns(Document winningPlan) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindIterable<Document> find = mock(FindIterable.class);
+        when(mongoTemplate.getCollectionName(any())).thenReturn("collection");
+        when(mongoTemplate.getCollection("collection")).thenReturn(collection);
+        when(collection.find(any(Bson.class))).thenReturn(find);
+        when(find.explain(ExplainVerbosity.QUERY_PLANNER))
+                .thenReturn(new Document("queryPlanner", new Document("winningPlan", winningPlan)));
+    }
+
+    @Test
+    public void testCollectionScanIsFoundInNestedPlans() {
+        assertTrue(IndexProvisioner.usesCollectionScan(plan("FETCH", plan("COLLSCAN", null))));
+        assertTrue(IndexProvisioner.usesCollectionScan(new Document("queryPlan", plan("SUBPLAN",
+                new Document("inputStages", List.of(plan("IXSCAN", null), plan("COLLSCAN", null)))))));
+        assertFalse(IndexProvisioner.usesCollectionScan(plan("FETCH", plan("IXSCAN", null))));
+    }
+
+    @Test
+    public void testRepositoryQueriesAreDerivedFromTheFinderMethods() {
+        Map<String, IndexProvisioner.IndexedQuery> queries = IndexProvisioner.repositoryQueries(mappingContext).stream()
+                .collect(Collectors.toMap(IndexProvisioner.IndexedQuery::name, query -> query));
+
+        assertEquals(new Document("name", ""), queries.get("TravelPackageRepository.findByName").filter());
+        assertEquals(TravelPackage.class, queries.get("ReactiveTravelPackageRepository.existsByName").entity());
+        assertEquals(new Document("passengerNumber", ""), queries.get("PassengerRepository.existsBypassengerNumber").filter());
+        assertEquals(Passenger.class, queries.get("PassengerRepository.existsBypassengerNumber").entity());
+        assertEquals(4, queries.size());
+    }
+
+    @Test
+    public void testFailModeStopsOnCollectionScan() {
+        ReflectionTestUtils.setField(indexProvisioner, "verification", IndexProvisioner.Verification.FAIL);
+
+        explainReturns(plan("COLLSCAN", null));
+        assertThrows(IllegalStateException.class, () -> indexProvisioner.verifyQueryPlans());
+
+        explainReturns(plan("FETCH", plan("IXSCAN", null)));
+        assertDoesNotThrow(() -> indexProvisioner.verifyQueryPlans());
+    }
+}
@@ -0,0 +1,65 @@
+package com.travel.travelProject.config;
+
+import com.mongodb.ReadPreference;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadRoutingTest {
+
+    private final ReadRouting readRouting = new ReadRouting(true, 90, 60);
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private void currentRequest(Cookie... cookies) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/travel/itinerary/p1");
+        request.setCookies(cookies);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @Test
+    public void testWritesLeaveACookieThatSendsTheClientsReadsToThePrimary() throws Exception {
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        readRouting.doFilter(new MockHttpServletRequest("POST", "/travel/addPassenger/p1"), written, new MockFilterChain());
+        Cookie lastWrite = written.getCookie(ReadRouting.LAST_WRITE_COOKIE);
+        assertNotNull(lastWrite);
+        // A secondary read cached just before the window closed can be served for another cache TTL
+        assertEquals(150, lastWrite.getMaxAge());
+
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        readRouting.doFilter(new MockHttpServletRequest("GET", "/travel/itinerary/p1"), read, new MockFilterChain());
+        assertNull(read.getCookie(ReadRouting.LAST_WRITE_COOKIE));
+
+        currentRequest(lastWrite);
+        assertFalse(readRouting.secondaryAllowed());
+        assertEquals(ReadPreference.primary(), readRouting.browse());
+    }
+
+    @Test
+    public void testOtherClientsReadFromSecondariesWithBoundedStaleness() {
+        ReadPreference secondary = ReadPreference.secondaryPreferred(90, TimeUnit.SECONDS);
+        assertEquals(secondary, readRouting.browse());
+
+        currentRequest(new Cookie(ReadRouting.LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(91))));
+        assertFalse(readRouting.secondaryAllowed());
+
+        currentRequest(new Cookie(ReadRouting.LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(151))));
+        assertTrue(readRouting.secondaryAllowed());
+        assertEquals(secondary, readRouting.browse());
+
+        assertEquals(ReadPreference.primary(), new ReadRouting(false, 90, 60).browse());
+        assertThrows(IllegalArgumentException.class, () -> new ReadRouting(true, 30, 60));
+    }
+}
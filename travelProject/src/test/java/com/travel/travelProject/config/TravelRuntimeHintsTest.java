@@ -0,0 +1,28 @@
+package com.travel.travelProject.config;
+
+import com.travel.travelProject.model.Passenger;
+import com.travel.travelProject.model.PackageAvailability;
+import com.travel.travelProject.model.SignUpOutcome;
+import com.travel.travelProject.model.TravelPackage;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TravelRuntimeHintsTest {
+
+    @Test
+    public void testModelTypesAndSpelTargetsAreRegisteredForReflection() {
+        RuntimeHints hints = new RuntimeHints();
+        new TravelRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TravelPackage.class)
+                .withMemberCategories(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(PackageAvailability.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Passenger.PassengerType.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(SignUpOutcome.Status.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ReadRouting.class, "secondaryAllowed").test(hints));
+    }
+}
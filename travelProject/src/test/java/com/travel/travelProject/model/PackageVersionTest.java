@@ -0,0 +1,35 @@
+package com.travel.travelProject.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PackageVersionTest {
+
+    @Test
+    public void testIfNoneMatchUsesWeakComparisonOverEveryListedTag() {
+        PackageVersion version = new PackageVersion("p1", 3, null);
+
+        assertEquals("W/\"p1-3\"", version.eTag());
+        assertTrue(version.matches("\"p1-3\""));
+        assertTrue(version.matches("\"p1-2\", W/\"p1-3\""));
+        assertTrue(version.matches("*"));
+        assertFalse(version.matches("\"p1-2\""));
+        assertFalse(version.matches("\"p2-3\""));
+        assertFalse(version.matches(null));
+    }
+
+    @Test
+    public void testTouchBumpsTheVersionOfThePackage() {
+        TravelPackage travelPackage = new TravelPackage("Goa", 5);
+        travelPackage.setId("p1");
+
+        travelPackage.touch();
+        travelPackage.touch();
+
+        assertEquals(2, travelPackage.packageVersion().getVersion());
+        assertTrue(travelPackage.packageVersion().getLastModified() != null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.DBRef;
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.Destination;
+import com.travel.travelProject.model.TravelPackage;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@SpringBootTest
+@ActiveProfiles("inmemory")
+public class ActivityDestinationMigrationTest {
+
+    @Autowired
+    private ActivityDestinationMigration migration;
+
+    @Autowired
+    private TravelPackageService travelPackageService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    public void testLegacyActivitiesGetTheirDestinationSoDuplicatesAreRejected() {
+        TravelPackage travelPackage = travelPackageService.createTravelPackage("Legacy Rishikesh", 5);
+        Destination destination = travelPackageService.createDestination("Shivpuri");
+        travelPackageService.addDestinationToTravelPackage(travelPackage.getId(), destination);
+
+        // Stored the way activities were before destinationId existed
+        ObjectId legacyId = new ObjectId();
+        mongoTemplate.insert(new Document("_id", legacyId).append("name", "Rafting").append("cost", 30.0)
+                .append("capacity", 10).append("destinationName", "Shivpuri"), "activities");
+        mongoTemplate.updateFirst(query(where("_id").is(destination.getId())),
+                new Update().push("activities", new DBRef("activities", legacyId)), Destination.class);
+
+        assertEquals(1, migration.migrate());
+        assertEquals(destination.getId(), mongoTemplate.findById(legacyId, Activity.class).getDestinationId());
+        assertEquals(0, migration.migrate());
+
+        RuntimeException duplicate = assertThrows(RuntimeException.class, () -> travelPackageService.addActivityToDestination(
+                travelPackage.getId(), destination.getId(), new Activity("Rafting", "Rafting tour", 30.0, 10, null)));
+        assertEquals("Activity 'Rafting' is already present in the destination.", duplicate.getMessage());
+    }
+}
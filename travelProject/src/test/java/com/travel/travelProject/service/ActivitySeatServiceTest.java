@@ -0,0 +1,104 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.ActivityEnrollment;
+import com.travel.travelProject.model.Passenger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ActivitySeatServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ActivitySeatService activitySeatService;
+
+    private Activity activity() {
+        Activity activity = new Activity("Snorkeling", "Reef tour", 40.0, 10, "Goa");
+        activity.setId("a1");
+        return activity;
+    }
+
+    @Test
+    public void testReserveSeatTakesSeatWithGuardedUpdate() {
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ActivityEnrollment.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        ActivitySeatService.Reservation result = activitySeatService.reserveSeat(activity(), () -> 0);
+
+        assertEquals(ActivitySeatService.Reservation.RESERVED, result);
+        verify(mongoTemplate, never()).insert(any(ActivityEnrollment.class));
+    }
+
+    @Test
+    public void testReserveSeatReturnsSoldOutWhenNoSeatsRemain() {
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ActivityEnrollment.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        Mockito.when(mongoTemplate.exists(any(Query.class), eq(ActivityEnrollment.class))).thenReturn(true);
+
+        ActivitySeatService.Reservation result = activitySeatService.reserveSeat(activity(), () -> 0);
+
+        assertEquals(ActivitySeatService.Reservation.SOLD_OUT, result);
+        verify(mongoTemplate, never()).insert(any(ActivityEnrollment.class));
+    }
+
+    @Test
+    public void testReserveSeatSeedsCounterForUntrackedActivity() {
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ActivityEnrollment.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Mockito.when(mongoTemplate.exists(any(Query.class), eq(ActivityEnrollment.class))).thenReturn(false);
+
+        ActivitySeatService.Reservation result = activitySeatService.reserveSeat(activity(), () -> 3);
+
+        assertEquals(ActivitySeatService.Reservation.RESERVED, result);
+        ArgumentCaptor<ActivityEnrollment> seeded = ArgumentCaptor.forClass(ActivityEnrollment.class);
+        verify(mongoTemplate).insert(seeded.capture());
+        assertEquals(3, seeded.getValue().getEnrolled());
+        assertEquals(7, seeded.getValue().getSeatsRemaining());
+    }
+
+    @Test
+    public void testReserveSeatsTakesRemainingSeatsWhenPartial() {
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ActivityEnrollment.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Mockito.when(mongoTemplate.findById("a1", ActivityEnrollment.class))
+                .thenReturn(new ActivityEnrollment("a1", 10, 7, 3));
+
+        assertEquals(3, activitySeatService.reserveSeats("a1", 5, true));
+    }
+
+    @Test
+    public void testCountEnrollmentsMatchesActivitiesById() {
+        Passenger first = new Passenger("John Doe", "P123", Passenger.PassengerType.STANDARD, 100.0);
+        first.addSignedUpActivity(activity());
+        Passenger second = new Passenger("Jane Smith", "P456", Passenger.PassengerType.GOLD, 200.0);
+        second.addSignedUpActivity(activity());
+        Passenger third = new Passenger();
+
+        Map<String, Integer> enrolled = ActivitySeatService.countEnrollments(List.of(first, second, third));
+
+        assertEquals(Map.of("a1", 2), enrolled);
+    }
+}
@@ -0,0 +1,146 @@
+package com.travel.travelProject.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travel.travelProject.model.*;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private BulkImportService bulkImportService;
+
+    @BeforeEach
+    public void setUp() {
+        bulkImportService = new BulkImportService(mongoTemplate, new ObjectMapper(), event -> { });
+    }
+
+    private TravelPackage travelPackage(String name) {
+        TravelPackage travelPackage = new TravelPackage(name, 2);
+        Destination destination = new Destination("Ubud");
+        destination.getActivities().add(new Activity("Yoga", "Morning class", 20.0, 5, null));
+        travelPackage.addDestination(destination);
+        travelPackage.addPassenger(new Passenger("John Doe", "P123", Passenger.PassengerType.GOLD, 100.0));
+        return travelPackage;
+    }
+
+    @Test
+    public void testImportTravelPackagesWritesEachCollectionInOneBulk() {
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(TravelPackage.class))).thenReturn(List.of());
+        Mockito.when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class))).thenReturn(bulkOperations);
+        Mockito.when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        TravelPackage travelPackage = travelPackage("Bali");
+        BulkImportResult result = bulkImportService.importTravelPackages(List.of(travelPackage).iterator());
+
+        assertEquals(1, result.getImported());
+        assertEquals(0, result.getFailed());
+        assertEquals(5, result.getDocumentsWritten());
+        assertNotNull(travelPackage.getId());
+        Destination destination = travelPackage.getItinerary().get(0);
+        assertEquals(travelPackage.getId(), destination.getTravelPackageID());
+        assertEquals("Ubud", destination.getActivities().get(0).getDestinationName());
+        verify(mongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, TravelPackage.class);
+    }
+
+    @Test
+    public void testImportNdjsonReportsBadRecordsWithoutFailingTheBatch() throws Exception {
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(TravelPackage.class))).thenReturn(List.of(new TravelPackage("Goa", 5)));
+        String ndjson = "{\"name\":\"Goa\",\"passengerCapacity\":5}\n"
+                + "not json\n"
+                + "{\"name\":\"Rome\",\"passengerCapacity\":0}\n";
+
+        BulkImportResult result = bulkImportService.importNdjson(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(0, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(2, 1, 3), result.getErrors().stream().map(BulkImportError::getRecord).toList());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+    }
+
+    @Test
+    public void testNullRecordIsRejectedWithoutFailingTheBatch() throws Exception {
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(TravelPackage.class))).thenReturn(List.of());
+        Mockito.when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class))).thenReturn(bulkOperations);
+        Mockito.when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        BulkImportResult result = bulkImportService.importTravelPackages(Arrays.asList(null, travelPackage("Bali")).iterator());
+        BulkImportResult ndjson = bulkImportService.importNdjson(new BufferedReader(new StringReader("null\n")));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(new BulkImportError(1, null, "Travel package cannot be null"), result.getErrors().get(0));
+        assertEquals(new BulkImportError(1, null, "Travel package cannot be null"), ndjson.getErrors().get(0));
+    }
+
+    @Test
+    public void testRecordRejectedByALaterInsertLeavesNoChildrenBehind() {
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(TravelPackage.class))).thenReturn(List.of());
+        Mockito.when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class))).thenReturn(bulkOperations);
+        BulkOperations passengerInserts = Mockito.mock(BulkOperations.class);
+        Mockito.when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Passenger.class)).thenReturn(passengerInserts);
+        Mockito.when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        Mockito.when(passengerInserts.insert(anyList())).thenReturn(passengerInserts);
+        // The first record's passenger is refused, the second record's goes in
+        BulkWriteError refused = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 0);
+        Mockito.when(passengerInserts.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()), List.of(refused),
+                        null, new ServerAddress(), Set.of())));
+        Mockito.when(mongoTemplate.remove(any(Query.class), any(Class.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        TravelPackage rejected = travelPackage("Bali");
+        TravelPackage imported = travelPackage("Goa");
+        BulkImportResult result = bulkImportService.importTravelPackages(List.of(rejected, imported).iterator());
+
+        assertEquals(1, result.getImported());
+        assertEquals(List.of(new BulkImportError(1, "Bali", "E11000 duplicate key error")), result.getErrors());
+        String activityId = rejected.getItinerary().get(0).getActivities().get(0).getId();
+        verify(mongoTemplate).remove(Mockito.<Query>argThat(query -> removes(query, activityId)), eq(Activity.class));
+        verify(mongoTemplate).remove(Mockito.<Query>argThat(query -> removes(query, activityId)), eq(ActivityEnrollment.class));
+        verify(mongoTemplate).remove(Mockito.<Query>argThat(query -> removes(query, rejected.getItinerary().get(0).getId())),
+                eq(Destination.class));
+        verify(mongoTemplate).remove(Mockito.<Query>argThat(query -> removes(query, rejected.getPassengers().get(0).getId())),
+                eq(Passenger.class));
+        // Only the package whose children all made it is written
+        verify(bulkOperations).insert(List.of(imported));
+    }
+
+    private static boolean removes(Query query, String id) {
+        return List.of(id).equals(query.getQueryObject().get("_id", Document.class).get("$in"));
+    }
+}
@@ -0,0 +1,205 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.*;
+import com.travel.travelProject.repository.PassengerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+// Group sign-ups against the in-memory Mongo of the "inmemory" profile
+@SpringBootTest
+@ActiveProfiles("inmemory")
+public class GroupSignUpServiceTest {
+
+    @Autowired
+    private GroupSignUpService groupSignUpService;
+
+    @Autowired
+    private TravelPackageService travelPackageService;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @SpyBean
+    private ActivitySeatService activitySeatService;
+
+    private TravelPackage travelPackage;
+    private Destination destination;
+
+    private void createPackage(String name) {
+        travelPackage = travelPackageService.createTravelPackage(name, 10);
+        destination = travelPackageService.createDestination(name + " Harbour");
+        travelPackageService.addDestinationToTravelPackage(travelPackage.getId(), destination);
+    }
+
+    private Activity addActivity(String name, double cost, int capacity) {
+        return travelPackageService.addActivityToDestination(travelPackage.getId(), destination.getId(),
+                new Activity(name, name + " tour", cost, capacity, null));
+    }
+
+    private Passenger addPassenger(String number, Passenger.PassengerType type, double balance) {
+        Passenger passenger = new Passenger(number, number, type, balance);
+        travelPackageService.addPassengerToTravelPackage(travelPackage.getId(), passenger);
+        return passenger;
+    }
+
+    private static List<SignUpOutcome.Status> statuses(GroupSignUpResult result) {
+        return result.getResults().stream().map(SignUpOutcome::getStatus).toList();
+    }
+
+    private int seatsRemaining(Activity activity) {
+        return mongoTemplate.findById(activity.getId(), ActivityEnrollment.class).getSeatsRemaining();
+    }
+
+    @Test
+    public void testAllOrNothingGivesBackEverythingWhenOneActivityIsShort() {
+        createPackage("Group Lisbon");
+        Activity kayak = addActivity("Kayak", 40.0, 5);
+        Activity surf = addActivity("Surf", 60.0, 1);
+        Passenger first = addPassenger("group-1", Passenger.PassengerType.STANDARD, 200.0);
+        Passenger second = addPassenger("group-2", Passenger.PassengerType.STANDARD, 200.0);
+
+        GroupSignUpResult result = groupSignUpService.signUp(travelPackage.getId(), GroupSignUpService.Mode.ALL_OR_NOTHING, List.of(
+                new SignUpRequest(first.getId(), kayak.getId()),
+                new SignUpRequest(first.getId(), surf.getId()),
+                new SignUpRequest(second.getId(), surf.getId())));
+
+        assertEquals(0, result.getSignedUp());
+        assertEquals(List.of(SignUpOutcome.Status.NOT_ATTEMPTED, SignUpOutcome.Status.SOLD_OUT, SignUpOutcome.Status.SOLD_OUT),
+                statuses(result));
+        for (Passenger passenger : passengerRepository.findAllById(List.of(first.getId(), second.getId()))) {
+            assertEquals(200.0, passenger.getBalance(), 0.001);
+            assertTrue(passenger.getBookings().isEmpty());
+        }
+        assertEquals(5, seatsRemaining(kayak));
+        assertEquals(1, seatsRemaining(surf));
+    }
+
+    @Test
+    public void testBestEffortSignsUpWhatItCanAndReportsTheRest() {
+        createPackage("Group Porto");
+        Activity tasting = addActivity("Tasting", 50.0, 2);
+        Activity cruise = addActivity("Cruise", 80.0, 5);
+        Passenger gold = addPassenger("group-3", Passenger.PassengerType.GOLD, 100.0);
+        Passenger standard = addPassenger("group-4", Passenger.PassengerType.STANDARD, 60.0);
+        Passenger premium = addPassenger("group-5", Passenger.PassengerType.PREMIUM, 0.0);
+        Passenger untyped = addPassenger("group-6", null, 500.0);
+
+        GroupSignUpResult result = groupSignUpService.signUp(travelPackage.getId(), GroupSignUpService.Mode.BEST_EFFORT, List.of(
+                new SignUpRequest(gold.getId(), tasting.getId()),
+                new SignUpRequest(gold.getId(), tasting.getId()),
+                new SignUpRequest(gold.getId(), cruise.getId()),
+                new SignUpRequest(standard.getId(), tasting.getId()),
+                new SignUpRequest(standard.getId(), cruise.getId()),
+                new SignUpRequest(premium.getId(), tasting.getId()),
+                new SignUpRequest(untyped.getId(), cruise.getId()),
+                new SignUpRequest("missing", cruise.getId())));
+
+        assertEquals(List.of(
+                SignUpOutcome.Status.SIGNED_UP,
+                SignUpOutcome.Status.ALREADY_SIGNED_UP,
+                SignUpOutcome.Status.INSUFFICIENT_BALANCE,
+                SignUpOutcome.Status.SIGNED_UP,
+                SignUpOutcome.Status.INSUFFICIENT_BALANCE,
+                SignUpOutcome.Status.SOLD_OUT,
+                SignUpOutcome.Status.INVALID_PASSENGER,
+                SignUpOutcome.Status.NOT_FOUND), statuses(result));
+        assertEquals(2, result.getSignedUp());
+        assertEquals(45.0, result.getResults().get(0).getPricePaid(), 0.001);
+
+        assertEquals(55.0, passengerRepository.findById(gold.getId()).orElseThrow().getBalance(), 0.001);
+        assertEquals(10.0, passengerRepository.findById(standard.getId()).orElseThrow().getBalance(), 0.001);
+        assertEquals(List.of(tasting.getId()), passengerRepository.findById(standard.getId()).orElseThrow().getBookedActivityIds());
+        assertTrue(passengerRepository.findById(premium.getId()).orElseThrow().getBookings().isEmpty());
+        assertEquals(0, seatsRemaining(tasting));
+        assertEquals(5, seatsRemaining(cruise));
+
+        // Pairs already booked by an earlier call count as duplicates too
+        GroupSignUpResult again = groupSignUpService.signUp(travelPackage.getId(), GroupSignUpService.Mode.BEST_EFFORT,
+                List.of(new SignUpRequest(gold.getId(), tasting.getId())));
+        assertEquals(List.of(SignUpOutcome.Status.ALREADY_SIGNED_UP), statuses(again));
+    }
+
+    @Test
+    public void testAllOrNothingRefundKeepsBookingsMadeByOtherCalls() {
+        createPackage("Group Faro");
+        Activity boat = addActivity("Boat", 50.0, 10);
+        Passenger booked = addPassenger("group-7", Passenger.PassengerType.STANDARD, 100.0);
+        Passenger drained = addPassenger("group-8", Passenger.PassengerType.STANDARD, 100.0);
+        Passenger refunded = addPassenger("group-9", Passenger.PassengerType.STANDARD, 100.0);
+
+        // While the seats are taken, another call books the boat for the first passenger and drains the second
+        doAnswer(invocation -> {
+            Object seats = invocation.callRealMethod();
+            bookConcurrently(booked, boat);
+            mongoTemplate.updateFirst(query(where("_id").is(drained.getId())), new Update().set("balance", 0.0), Passenger.class);
+            return seats;
+        }).when(activitySeatService).reserveSeats(anyString(), anyInt(), anyBoolean());
+
+        GroupSignUpResult result = groupSignUpService.signUp(travelPackage.getId(), GroupSignUpService.Mode.ALL_OR_NOTHING, List.of(
+                new SignUpRequest(booked.getId(), boat.getId()),
+                new SignUpRequest(drained.getId(), boat.getId()),
+                new SignUpRequest(refunded.getId(), boat.getId())));
+
+        assertEquals(List.of(SignUpOutcome.Status.ALREADY_SIGNED_UP, SignUpOutcome.Status.INSUFFICIENT_BALANCE,
+                SignUpOutcome.Status.NOT_ATTEMPTED), statuses(result));
+        // The other call's booking is neither pushed again nor pulled, this call's charge is given back
+        Passenger concurrent = passengerRepository.findById(booked.getId()).orElseThrow();
+        assertEquals(50.0, concurrent.getBalance(), 0.001);
+        assertEquals(1, concurrent.getBookings().size());
+        assertNull(concurrent.getBookings().get(0).getSignUpId());
+        assertTrue(passengerRepository.findById(drained.getId()).orElseThrow().getBookings().isEmpty());
+        assertEquals(100.0, passengerRepository.findById(refunded.getId()).orElseThrow().getBalance(), 0.001);
+        assertTrue(passengerRepository.findById(refunded.getId()).orElseThrow().getBookings().isEmpty());
+        assertEquals(10, seatsRemaining(boat));
+    }
+
+    @Test
+    public void testBestEffortNeverChargesTwiceForAPairBookedMeanwhile() {
+        createPackage("Group Braga");
+        Activity hike = addActivity("Hike", 30.0, 10);
+        Passenger booked = addPassenger("group-10", Passenger.PassengerType.STANDARD, 100.0);
+        Passenger other = addPassenger("group-11", Passenger.PassengerType.STANDARD, 100.0);
+
+        doAnswer(invocation -> {
+            Object seats = invocation.callRealMethod();
+            bookConcurrently(booked, hike);
+            return seats;
+        }).when(activitySeatService).reserveSeats(anyString(), anyInt(), anyBoolean());
+
+        GroupSignUpResult result = groupSignUpService.signUp(travelPackage.getId(), GroupSignUpService.Mode.BEST_EFFORT, List.of(
+                new SignUpRequest(booked.getId(), hike.getId()),
+                new SignUpRequest(other.getId(), hike.getId())));
+
+        assertEquals(List.of(SignUpOutcome.Status.ALREADY_SIGNED_UP, SignUpOutcome.Status.SIGNED_UP), statuses(result));
+        Passenger once = passengerRepository.findById(booked.getId()).orElseThrow();
+        assertEquals(50.0, once.getBalance(), 0.001);
+        assertEquals(1, once.getBookings().size());
+        // Only the seat of the pair actually charged is kept
+        assertEquals(9, seatsRemaining(hike));
+    }
+
+    // A sign-up for the same pair made by another call, without this call's signUpId
+    private void bookConcurrently(Passenger passenger, Activity activity) {
+        mongoTemplate.updateFirst(query(where("_id").is(passenger.getId())),
+                new Update().inc("balance", -50.0).push("signedUpActivities", new ActivityBooking(activity.getId(), 50.0)),
+                Passenger.class);
+    }
+}
@@ -0,0 +1,122 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.Exception.TravelException;
+import com.travel.travelProject.model.*;
+import com.travel.travelProject.repository.PassengerRepository;
+import com.travel.travelProject.repository.TravelPackageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the service against the in-memory Mongo of the "inmemory" profile, no database needs to be running
+@SpringBootTest
+@ActiveProfiles("inmemory")
+public class InMemoryTravelPackageServiceTest {
+
+    @Autowired
+    private TravelPackageService travelPackageService;
+
+    @Autowired
+    private TravelPackageRepository travelPackageRepository;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Autowired
+    private SignUpAdmissionService signUpAdmissionService;
+
+    private Activity addActivity(TravelPackage travelPackage, Destination destination, String name, double cost, int capacity) {
+        return travelPackageService.addActivityToDestination(travelPackage.getId(), destination.getId(),
+                new Activity(name, name + " tour", cost, capacity, null));
+    }
+
+    @Test
+    public void testSignUpChargesThePassengerAndSellsOutTheActivity() {
+        TravelPackage travelPackage = travelPackageService.createTravelPackage("In-memory Goa", 5);
+        Destination destination = travelPackageService.createDestination("Baga Beach");
+        travelPackageService.addDestinationToTravelPackage(travelPackage.getId(), destination);
+        Activity surfing = addActivity(travelPackage, destination, "Surfing", 100.0, 1);
+
+        Passenger gold = new Passenger("A", "mem-1", Passenger.PassengerType.GOLD, 500.0);
+        Passenger standard = new Passenger("B", "mem-2", Passenger.PassengerType.STANDARD, 500.0);
+        travelPackageService.addPassengerToTravelPackage(travelPackage.getId(), gold);
+        travelPackageService.addPassengerToTravelPackage(travelPackage.getId(), standard);
+
+        assertEquals(HttpStatus.OK, travelPackageService.signUpForActivity(travelPackage.getId(), gold.getId(), surfing.getId()));
+        assertEquals(HttpStatus.CONFLICT, travelPackageService.signUpForActivity(travelPackage.getId(), standard.getId(), surfing.getId()));
+
+        assertEquals(410.0, passengerRepository.findById(gold.getId()).orElseThrow().getBalance(), 0.001);
+        TravelPackageItinerary itinerary = travelPackageService.getItinerary(travelPackage.getId());
+        assertEquals(2, itinerary.getPassengerCount());
+        assertEquals("Surfing", itinerary.getItinerary().get(0).getActivities().get(0).getName());
+        assertEquals(0, travelPackageService.getAvailability(travelPackage.getId()).getActivities().get(surfing.getId()).getSeatsLeft());
+    }
+
+    @Test
+    public void testQueuedSignUpsNeverOversellAHotActivity() throws Exception {
+        TravelPackage travelPackage = travelPackageService.createTravelPackage("In-memory Bali", 20);
+        Destination destination = travelPackageService.createDestination("Uluwatu");
+        travelPackageService.addDestinationToTravelPackage(travelPackage.getId(), destination);
+        Activity temple = addActivity(travelPackage, destination, "Temple", 30.0, 5);
+        List<String> passengerIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Passenger passenger = new Passenger("P" + i, "mem-bali-" + i, Passenger.PassengerType.STANDARD, 100.0);
+            travelPackageService.addPassengerToTravelPackage(travelPackage.getId(), passenger);
+            passengerIds.add(passenger.getId());
+        }
+
+        List<Future<HttpStatus>> signUps = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String passengerId : passengerIds) {
+                signUps.add(callers.submit(() -> signUpAdmissionService.signUp(travelPackage.getId(), passengerId, temple.getId())));
+            }
+        }
+
+        int signedUp = 0;
+        for (Future<HttpStatus> signUp : signUps) {
+            signedUp += signUp.get() == HttpStatus.OK ? 1 : 0;
+        }
+        assertEquals(5, signedUp);
+        assertEquals(5, passengerRepository.findAllById(passengerIds).stream()
+                .filter(passenger -> passenger.getBalance() == 70.0 && passenger.getBookings().size() == 1)
+                .count());
+        assertEquals(0, travelPackageService.getAvailability(travelPackage.getId()).getActivities().get(temple.getId()).getSeatsLeft());
+    }
+
+    @Test
+    public void testDerivedQueriesAndUniqueIndexesBehaveAsOnMongo() {
+        TravelPackage travelPackage = travelPackageService.createTravelPackage("In-memory Alps", 1);
+        Destination destination = travelPackageService.createDestination("Zermatt");
+        travelPackageService.addDestinationToTravelPackage(travelPackage.getId(), destination);
+        addActivity(travelPackage, destination, "Skiing", 50.0, 10);
+        travelPackageService.addPassengerToTravelPackage(travelPackage.getId(),
+                new Passenger("C", "mem-3", Passenger.PassengerType.PREMIUM, 0.0));
+
+        assertTrue(travelPackageRepository.existsByName("In-memory Alps"));
+        assertEquals(travelPackage.getId(), travelPackageRepository.findByName("In-memory Alps").orElseThrow().getId());
+        assertTrue(passengerRepository.existsBypassengerNumber("mem-3"));
+        assertFalse(passengerRepository.existsBypassengerNumber("mem-4"));
+
+        RuntimeException duplicateActivity = assertThrowsExactly(RuntimeException.class,
+                () -> addActivity(travelPackage, destination, "Skiing", 50.0, 10));
+        assertEquals("Activity 'Skiing' is already present in the destination.", duplicateActivity.getMessage());
+        RuntimeException duplicatePackage = assertThrowsExactly(RuntimeException.class,
+                () -> travelPackageService.createTravelPackage("In-memory Alps", 3));
+        assertEquals("A TravelPackage with the name 'In-memory Alps' already exists.", duplicatePackage.getMessage());
+        // The service checks the name first, the unique index catches what gets past it
+        assertThrows(DuplicateKeyException.class, () -> travelPackageRepository.insert(new TravelPackage("In-memory Alps", 3)));
+        assertThrows(TravelException.class, () -> travelPackageService.addPassengerToTravelPackage(travelPackage.getId(),
+                new Passenger("D", "mem-4", Passenger.PassengerType.STANDARD, 0.0)));
+    }
+}
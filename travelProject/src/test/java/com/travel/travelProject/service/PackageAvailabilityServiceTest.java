@@ -0,0 +1,69 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.travel.travelProject.model.PackageAvailability;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageAvailabilityServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ActivitySeatService activitySeatService;
+
+    @Mock
+    private TravelMetrics travelMetrics;
+
+    @InjectMocks
+    private PackageAvailabilityService packageAvailabilityService;
+
+    @Test
+    public void testSignedUpIncrementsActivityAndPackageTotals() {
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PackageAvailability.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        packageAvailabilityService.on(new TravelPackageEvent.SignedUp("p1", "a1", 2, 90.0, Instant.now()));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PackageAvailability.class));
+        Document increments = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(2, increments.get("activities.a1.enrolled"));
+        assertEquals(-2, increments.get("activities.a1.seatsLeft"));
+        assertEquals(90.0, increments.get("activities.a1.revenue"));
+        assertEquals(90.0, increments.get("revenue"));
+        verify(travelMetrics).recordAvailabilityUpdate(any());
+    }
+
+    @Test
+    public void testMissingReadModelIsRebuiltFromThePackage() {
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PackageAvailability.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        packageAvailabilityService.on(new TravelPackageEvent.PassengerAdded("p1", "c1", Instant.now()));
+
+        verify(mongoTemplate).findOne(any(Query.class), eq(Document.class), eq("travelPackages"));
+        verify(mongoTemplate, never()).save(any(PackageAvailability.class));
+        verify(mongoTemplate).remove(any(Query.class), eq(PackageAvailability.class));
+    }
+}
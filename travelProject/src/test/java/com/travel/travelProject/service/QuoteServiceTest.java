@@ -0,0 +1,117 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.Passenger;
+import com.travel.travelProject.model.Quote;
+import com.travel.travelProject.model.QuoteRequest;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class QuoteServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private QuoteService quoteService;
+
+    private static Activity activity(String id, double cost) {
+        Activity activity = new Activity("Activity " + id, "", cost, 10, "Beach");
+        activity.setId(id);
+        return activity;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        quoteService = new QuoteService(mongoTemplate,
+                new ConcurrentMapCacheManager("passengersById", "activitiesById", "itineraries"));
+    }
+
+    @Test
+    public void testQuotesUseSignUpPricingForEachPassengerType() {
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Activity.class)))
+                .thenReturn(List.of(activity("a1", 100.0), activity("a2", 50.0)));
+        List<String> activityIds = List.of("a1", "a2");
+
+        List<Quote> quotes = quoteService.quote(List.of(
+                new QuoteRequest(null, Passenger.PassengerType.STANDARD, null, activityIds),
+                new QuoteRequest(null, Passenger.PassengerType.GOLD, null, activityIds),
+                new QuoteRequest(null, Passenger.PassengerType.PREMIUM, null, activityIds)));
+
+        assertEquals(150.0, quotes.get(0).getTotal(), 0.001);
+        assertEquals(135.0, quotes.get(1).getTotal(), 0.001);
+        assertEquals(0.0, quotes.get(2).getTotal(), 0.001);
+        assertEquals(90.0, quotes.get(1).getLines().get(0).getPrice(), 0.001);
+
+        // The second batch is answered from the cache
+        quoteService.quote(new QuoteRequest(null, Passenger.PassengerType.GOLD, null, activityIds));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Activity.class));
+    }
+
+    @Test
+    public void testPassengerQuoteReportsAffordabilityAndUnknownIdsFailPerRequest() {
+        Passenger passenger = new Passenger("A", "1", Passenger.PassengerType.STANDARD, 120.0);
+        passenger.setId("p1");
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Passenger.class))).thenReturn(List.of(passenger));
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Activity.class))).thenReturn(List.of(activity("a1", 100.0), activity("a2", 50.0)));
+
+        List<Quote> quotes = quoteService.quote(List.of(
+                new QuoteRequest("p1", null, null, List.of("a1", "a2")),
+                new QuoteRequest("p2", null, null, List.of("a1")),
+                new QuoteRequest("p1", null, null, List.of("a3"))));
+
+        assertEquals(150.0, quotes.get(0).getTotal(), 0.001);
+        assertFalse(quotes.get(0).getAffordable());
+        assertNull(quotes.get(0).getError());
+        assertEquals("Passenger not found ID: p2", quotes.get(1).getError());
+        assertEquals("Activity not found ID: a3", quotes.get(2).getError());
+    }
+
+    private static Document travelPackage(String id, String... activityIds) {
+        List<Document> activities = Arrays.stream(activityIds).map(activityId -> new Document("_id", activityId)).toList();
+        return new Document("_id", new ObjectId(id)).append("itinerary", List.of(new Document("_id", "d1").append("activities", activities)));
+    }
+
+    @Test
+    public void testItinerariesOfAllRequestedPackagesAreReadInOneQuery() {
+        String goa = new ObjectId().toHexString();
+        String kochi = new ObjectId().toHexString();
+        String missing = new ObjectId().toHexString();
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("travelPackages")))
+                .thenReturn(List.of(travelPackage(goa, "a1", "a2"), travelPackage(kochi, "a2")));
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(Activity.class)))
+                .thenReturn(List.of(activity("a1", 100.0), activity("a2", 50.0)));
+
+        List<Quote> quotes = quoteService.quote(List.of(
+                new QuoteRequest(null, Passenger.PassengerType.STANDARD, goa, null),
+                new QuoteRequest(null, Passenger.PassengerType.GOLD, kochi, null),
+                new QuoteRequest(null, Passenger.PassengerType.STANDARD, missing, null)));
+
+        assertEquals(150.0, quotes.get(0).getTotal(), 0.001);
+        assertEquals(45.0, quotes.get(1).getTotal(), 0.001);
+        assertEquals("Travel Package not found ID: " + missing, quotes.get(2).getError());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), anyString());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Activity.class));
+    }
+}
@@ -0,0 +1,58 @@
+package com.travel.travelProject.service;
+
+import com.mongodb.ReadPreference;
+import com.travel.travelProject.model.*;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Writes through the reactive stack must keep the same read models current as writes through the servlet stack
+@SpringBootTest
+@ActiveProfiles({"reactive", "inmemory"})
+public class ReactiveTravelPackageServiceTest {
+
+    @Autowired
+    private ReactiveTravelPackageService travelPackageService;
+
+    @Autowired
+    private PackageAvailabilityService packageAvailabilityService;
+
+    @Autowired
+    private TravelSearchService travelSearchService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void testReactiveWritesUpdateTheReadModelsAndEvictTheCaches() {
+        TravelPackage travelPackage = travelPackageService.createTravelPackage("Reactive Kerala", 5).block();
+        Destination destination = travelPackageService.createDestination("Munnar").block();
+        travelPackageService.addDestinationToTravelPackage(travelPackage.getId(), destination).block();
+        Activity trek = travelPackageService.addActivityToDestination(travelPackage.getId(), destination.getId(),
+                new Activity("Tea estate trek", "Guided trek", 40.0, 3, null)).block();
+        Passenger passenger = new Passenger("R", "reactive-1", Passenger.PassengerType.STANDARD, 100.0);
+        travelPackageService.addPassengerToTravelPackage(travelPackage.getId(), passenger).block();
+
+        Objects.requireNonNull(cacheManager.getCache("passengersById")).put(passenger.getId(), passenger);
+        assertEquals(HttpStatus.OK, travelPackageService.signUpForActivity(travelPackage.getId(), passenger.getId(), trek.getId()).block());
+
+        PackageAvailability availability = packageAvailabilityService.getAvailability(travelPackage.getId(), ReadPreference.primary());
+        assertEquals(1, availability.getEnrolledPassengers());
+        assertEquals(40.0, availability.getRevenue(), 0.001);
+        assertEquals(2, availability.getActivities().get(trek.getId()).getSeatsLeft());
+
+        List<SearchResult> results = travelSearchService.search("tea", SearchResult.Type.ACTIVITY, null, null, null, 10);
+        assertEquals(List.of(trek.getId()), results.stream().map(SearchResult::getId).toList());
+        assertEquals(2, results.get(0).getSeatsLeft());
+
+        assertNull(Objects.requireNonNull(cacheManager.getCache("passengersById")).get(passenger.getId()));
+    }
+}
@@ -0,0 +1,219 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.Exception.NotFoundException;
+import com.travel.travelProject.Exception.TravelException;
+import com.travel.travelProject.model.GroupSignUpResult;
+import com.travel.travelProject.model.SignUpOutcome;
+import com.travel.travelProject.model.SignUpRequest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class SignUpAdmissionServiceTest {
+
+    @Mock
+    private TravelPackageService travelPackageService;
+
+    @Mock
+    private GroupSignUpService groupSignUpService;
+
+    @Mock
+    private TravelMetrics travelMetrics;
+
+    private static final String ACTIVITY_ID = new ObjectId().toHexString();
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    private SignUpAdmissionService admissionService(int queueDepth) {
+        return admissionService(queueDepth, Duration.ofSeconds(10));
+    }
+
+    private SignUpAdmissionService admissionService(int queueDepth, Duration timeout) {
+        return new SignUpAdmissionService(travelPackageService, groupSignUpService, travelMetrics, true, queueDepth, 100, timeout);
+    }
+
+    // The first batch holds the writer until released, every later batch signs up all but passenger p2
+    @SuppressWarnings("unchecked")
+    private void answerGroupSignUps() {
+        Mockito.when(groupSignUpService.signUp(eq("tp1"), eq(GroupSignUpService.Mode.BEST_EFFORT), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            List<SignUpOutcome> outcomes = new ArrayList<>();
+            for (SignUpRequest request : (List<SignUpRequest>) invocation.getArgument(2)) {
+                SignUpOutcome.Status status = request.getPassengerId().equals("p2") ? SignUpOutcome.Status.INSUFFICIENT_BALANCE
+                        : SignUpOutcome.Status.SIGNED_UP;
+                outcomes.add(new SignUpOutcome(request.getPassengerId(), request.getActivityId(), status, 0));
+            }
+            return new GroupSignUpResult("BEST_EFFORT", outcomes.size(), outcomes.size(), outcomes);
+        });
+    }
+
+    private Future<HttpStatus> signUp(SignUpAdmissionService admissionService, String passengerId) {
+        return callers.submit(() -> admissionService.signUp("tp1", passengerId, ACTIVITY_ID));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSignUpsQueuedBehindTheWriterAreWrittenAsOneBatch() throws Exception {
+        answerGroupSignUps();
+        SignUpAdmissionService admissionService = admissionService(10);
+
+        Future<HttpStatus> first = signUp(admissionService, "p0");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        List<Future<HttpStatus>> queued = List.of(signUp(admissionService, "p1"), signUp(admissionService, "p2"),
+                signUp(admissionService, "p3"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.OK, queued.get(0).get(5, TimeUnit.SECONDS));
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> queued.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TravelException.class, rejected.getCause());
+        assertEquals(HttpStatus.OK, queued.get(2).get(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<List<SignUpRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(groupSignUpService, times(2)).signUp(eq("tp1"), eq(GroupSignUpService.Mode.BEST_EFFORT), batches.capture());
+        assertEquals(1, batches.getAllValues().get(0).size());
+        assertEquals(3, batches.getAllValues().get(1).size());
+        verify(travelMetrics).recordSignUpBatch(3);
+    }
+
+    @Test
+    public void testFullQueueRejectsWithoutWaiting() throws Exception {
+        answerGroupSignUps();
+        SignUpAdmissionService admissionService = admissionService(1);
+
+        Future<HttpStatus> first = signUp(admissionService, "p0");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Future<HttpStatus> queued = signUp(admissionService, "p1");
+        Thread.sleep(100);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, admissionService.signUp("tp1", "p3", ACTIVITY_ID));
+
+        release.countDown();
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.OK, queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDisabledAdmissionSignsUpDirectly() {
+        Mockito.when(travelPackageService.signUpForActivity("tp1", "p0", "a1")).thenReturn(HttpStatus.CONFLICT);
+        SignUpAdmissionService admissionService = new SignUpAdmissionService(travelPackageService, groupSignUpService,
+                travelMetrics, false, 10, 100, Duration.ofSeconds(10));
+
+        assertEquals(HttpStatus.CONFLICT, admissionService.signUp("tp1", "p0", "a1"));
+        Mockito.verifyNoInteractions(groupSignUpService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSignUpNotWrittenInTimeIsDroppedFromTheQueue() throws Exception {
+        answerGroupSignUps();
+        SignUpAdmissionService admissionService = admissionService(10, Duration.ofMillis(200));
+
+        Future<HttpStatus> first = signUp(admissionService, "p0");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, admissionService.signUp("tp1", "p1", ACTIVITY_ID));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, first.get(5, TimeUnit.SECONDS));
+
+        // The timed-out caller behind the writer was never written, the one already in a batch still was
+        release.countDown();
+        ArgumentCaptor<List<SignUpRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(groupSignUpService, Mockito.timeout(5000)).signUp(eq("tp1"), eq(GroupSignUpService.Mode.BEST_EFFORT), batches.capture());
+        assertEquals(List.of("p0"), batches.getValue().stream().map(SignUpRequest::getPassengerId).toList());
+    }
+
+    @Test
+    public void testLanesAreOnlyKeptForActivitiesWithSignUpsInFlight() throws Exception {
+        answerGroupSignUps();
+        release.countDown();
+        SignUpAdmissionService admissionService = admissionService(10);
+        Map<?, ?> lanes = (Map<?, ?>) ReflectionTestUtils.getField(admissionService, "lanes");
+
+        assertThrows(NotFoundException.class, () -> admissionService.signUp("tp1", "p0", "not-an-activity"));
+        assertTrue(lanes.isEmpty());
+
+        assertEquals(HttpStatus.OK, signUp(admissionService, "p0").get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50 && !lanes.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(lanes.isEmpty());
+        assertEquals(HttpStatus.OK, signUp(admissionService, "p1").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDroppedLaneHandsItsSignUpsToTheLaneThatReplacedIt() throws Exception {
+        SignUpAdmissionService admissionService = admissionService(10);
+        Map<String, Object> lanes = (Map<String, Object>) ReflectionTestUtils.getField(admissionService, "lanes");
+        List<Object> lanesWritten = new CopyOnWriteArrayList<>();
+        CountDownLatch hold = new CountDownLatch(1);
+        Mockito.when(groupSignUpService.signUp(eq("tp1"), eq(GroupSignUpService.Mode.BEST_EFFORT), anyList())).thenAnswer(invocation -> {
+            lanesWritten.add(lanes.get(ACTIVITY_ID));
+            if (lanesWritten.size() == 2) {
+                writing.countDown();
+                hold.await();
+            }
+            List<SignUpOutcome> outcomes = ((List<SignUpRequest>) invocation.getArgument(2)).stream()
+                    .map(request -> new SignUpOutcome(request.getPassengerId(), request.getActivityId(), SignUpOutcome.Status.SIGNED_UP, 0))
+                    .toList();
+            return new GroupSignUpResult("BEST_EFFORT", outcomes.size(), outcomes.size(), outcomes);
+        });
+
+        // The first lane runs empty and is dropped, a second one is writing when a caller still holding the first offers to it
+        assertEquals(HttpStatus.OK, signUp(admissionService, "p0").get(5, TimeUnit.SECONDS));
+        Object dropped = lanesWritten.get(0);
+        for (int i = 0; i < 50 && !lanes.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        Future<HttpStatus> writer = signUp(admissionService, "p1");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Object current = lanes.get(ACTIVITY_ID);
+        assertNotSame(dropped, current);
+
+        CompletableFuture<SignUpOutcome> late = new CompletableFuture<>();
+        Constructor<?> ticket = Class.forName(SignUpAdmissionService.class.getName() + "$Ticket").getDeclaredConstructors()[0];
+        ticket.setAccessible(true);
+        ((BlockingQueue<Object>) ReflectionTestUtils.getField(dropped, "queue"))
+                .offer(ticket.newInstance("tp1", new SignUpRequest("p2", ACTIVITY_ID), late));
+        ReflectionTestUtils.invokeMethod(dropped, "schedule");
+
+        // Only the lane in the map writes: the late sign-up waits for its writer instead of being written alongside
+        Thread.sleep(100);
+        assertFalse(late.isDone());
+        assertSame(current, lanes.get(ACTIVITY_ID));
+        hold.countDown();
+        assertEquals(HttpStatus.OK, writer.get(5, TimeUnit.SECONDS));
+        assertEquals(SignUpOutcome.Status.SIGNED_UP, late.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(List.of(dropped, current, current), lanesWritten);
+    }
+}
@@ -0,0 +1,26 @@
+package com.travel.travelProject.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SignedUpActivityMigrationTest {
+
+    @Test
+    public void testEmbeddedActivitiesBecomeBookingsPricedByPassengerType() {
+        ObjectId activityId = new ObjectId();
+        Document embeddedActivity = new Document("_id", activityId).append("name", "Snorkeling").append("cost", 40.0);
+        Document booking = new Document("activityId", new ObjectId()).append("pricePaid", 12.0);
+
+        List<Document> bookings = SignedUpActivityMigration.toBookings("GOLD", List.of(embeddedActivity, booking));
+
+        assertEquals(List.of(new Document("activityId", activityId).append("pricePaid", 36.0), booking), bookings);
+        assertEquals(0.0, SignedUpActivityMigration.toBookings("PREMIUM", List.of(embeddedActivity)).get(0).get("pricePaid"));
+        assertEquals(40.0, SignedUpActivityMigration.toBookings(null, List.of(embeddedActivity)).get(0).get("pricePaid"));
+        assertEquals(40.0, SignedUpActivityMigration.toBookings("PLATINUM", List.of(embeddedActivity)).get(0).get("pricePaid"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.Passenger;
+import com.travel.travelProject.model.TravelPackage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Remaining capacity is reported as totals, with one series for each of the fullest packages only when asked for
+@SpringBootTest(properties = "travel.metrics.capacity-top-packages=1")
+@ActiveProfiles("inmemory")
+public class TravelMetricsTest {
+
+    @Autowired
+    private TravelPackageService travelPackageService;
+
+    @Autowired
+    private TravelMetrics travelMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testRemainingCapacityIsReportedAsTotalsAndTheFullestPackages() {
+        TravelPackage full = travelPackageService.createTravelPackage("Metrics Full", 1);
+        travelPackageService.createTravelPackage("Metrics Empty", 5);
+        travelPackageService.addPassengerToTravelPackage(full.getId(),
+                new Passenger("M", "metrics-1", Passenger.PassengerType.STANDARD, 0.0));
+
+        travelMetrics.refreshRemainingCapacity();
+
+        assertEquals(5.0, meterRegistry.get("travel.packages.remaining.capacity").gauge().value());
+        assertEquals(1.0, meterRegistry.get("travel.packages.full").gauge().value());
+        assertEquals(1, meterRegistry.get("travel.package.remaining.capacity").gauges().size());
+        assertEquals(0.0, meterRegistry.get("travel.package.remaining.capacity").tag("package", "Metrics Full").gauge().value());
+    }
+}
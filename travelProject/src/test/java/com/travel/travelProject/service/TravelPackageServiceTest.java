@@ -1,5 +1,8 @@
 package com.travel.travelProject.service;
 
+import com.mongodb.ReadPreference;
+import com.travel.travelProject.Exception.NotFoundException;
+import com.travel.travelProject.config.ReadRouting;
 import com.travel.travelProject.model.Activity;
 import com.travel.travelProject.model.Destination;
 import com.travel.travelProject.model.Passenger;
@@ -9,21 +12,30 @@ import com.travel.travelProject.repository.DestinationRepository;
 import com.travel.travelProject.repository.PassengerRepository;
 import com.travel.travelProject.repository.TravelPackageRepository;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import static org.junit.jupiter.api.Assertions.*;
 import org.mockito.Mock;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mockito;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.never;
-import org.mockito.junit.MockitoJUnitRunner;
-import org.junit.*;
+import org.junit.jupiter.api.Test;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.travel.travelProject.event.TravelPackageEvent;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import java.util.*;
 
-@RunWith(MockitoJUnitRunner.class)
 @ExtendWith(MockitoExtension.class)
 public class TravelPackageServiceTest {
 
@@ -38,6 +50,21 @@ public class TravelPackageServiceTest {
     @Mock
     private ActivityRepository activityRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ReadRouting readRouting;
+
+    @Mock
+    private ActivitySeatService activitySeatService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
     @InjectMocks
     private TravelPackageService travelPackageService;
 
@@ -84,15 +111,18 @@ public class TravelPackageServiceTest {
         String packageName = "TestPackage";
         TravelPackage mockTravelPackage = new TravelPackage();
 
-        // Mock the behavior of the repository and service methods
-        Mockito.when(travelPackageRepository.findByName(packageName)).thenReturn(Optional.of(mockTravelPackage));
+        // Mock the behavior of the template and of the read routing
+        Mockito.when(readRouting.browse()).thenReturn(ReadPreference.secondaryPreferred());
+        Mockito.when(mongoTemplate.findOne(any(Query.class), eq(TravelPackage.class))).thenReturn(mockTravelPackage);
 
         // Perform the actual method invocation
         Optional<TravelPackage> result = travelPackageService.getTravelPackageByName(packageName);
 
-        // Verify the result
+        // Verify the result, read from where the routing sends catalog reads
         assertTrue(result.isPresent());
         assertEquals(mockTravelPackage, result.get());
+        verify(mongoTemplate).findOne(Mockito.<Query>argThat(query -> ReadPreference.secondaryPreferred().equals(query.getReadPreference())),
+                eq(TravelPackage.class));
     }
 
     @Test
@@ -138,6 +168,7 @@ public class TravelPackageServiceTest {
         // Verify that repository methods were called
         verify(travelPackageRepository, times(1)).existsByName(packageName);
         verify(travelPackageRepository, times(1)).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(TravelPackageEvent.Created.class));
     }
 
     @Test
@@ -157,6 +188,7 @@ public class TravelPackageServiceTest {
         // Verify that repository methods were called
         verify(travelPackageRepository, times(1)).existsByName(packageName);
         verify(travelPackageRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -231,6 +263,7 @@ public class TravelPackageServiceTest {
 
         // Verify that the save method was called on activityRepository
         verify(activityRepository, times(1)).save(any(Activity.class));
+        verify(activitySeatService, times(1)).track(expectedActivity);
     }
 
 
@@ -254,4 +287,98 @@ public class TravelPackageServiceTest {
         verify(travelPackageRepository, times(1)).findById(travelPackageId);
     }
 
+    @Test
+    public void testSignUpForActivityReadsThePackageWithoutResolvingItsPassengers() {
+        // Arrange: the package as its projection comes back, with raw references to its passengers and activities
+        Activity activity = new Activity("Surfing", "Surfing tour", 100.0, 10, "Baga Beach");
+        activity.setId("a1");
+        Passenger passenger = new Passenger("John Doe", "P123", Passenger.PassengerType.GOLD, 500.0);
+        passenger.setId("p1");
+        Document travelPackage = new Document("_id", "tp1").append("name", "Goa")
+                .append("itinerary", List.of(new Document("_id", "d1").append("activities", List.of(new Document("_id", "a1")))))
+                .append("passengers", List.of(new Document("_id", "p1")));
+
+        Mockito.when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("travelPackages"))).thenReturn(travelPackage);
+        Mockito.when(passengerRepository.findById("p1")).thenReturn(Optional.of(passenger));
+        Mockito.when(mongoTemplate.findById("a1", Activity.class)).thenReturn(activity);
+        Mockito.when(activitySeatService.reserveSeat(eq(activity), any())).thenReturn(ActivitySeatService.Reservation.RESERVED);
+        Mockito.when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Passenger.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Mockito.when(cacheManager.getCache(any())).thenReturn(Mockito.mock(Cache.class));
+
+        // Act
+        HttpStatus status = travelPackageService.signUpForActivity("tp1", "p1", "a1");
+
+        // Assert: the passenger was charged the gold price and the full package was never loaded
+        assertEquals(HttpStatus.OK, status);
+        verify(mongoTemplate).updateFirst(Mockito.<Query>argThat(query -> query.getQueryObject().get("balance") != null),
+                Mockito.<Update>argThat(update -> update.getUpdateObject().get("$inc", Document.class).get("balance").equals(-90.0)),
+                eq(Passenger.class));
+        verify(travelPackageRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(any(TravelPackageEvent.SignedUp.class));
+    }
+
+    @Test
+    public void testSignUpForActivityOutsideThePackageIsNotFound() {
+        Document travelPackage = new Document("_id", "tp1").append("name", "Goa").append("itinerary", List.of());
+        Mockito.when(mongoTemplate.findOne(any(Query.class), eq(Document.class), eq("travelPackages"))).thenReturn(travelPackage);
+        Mockito.when(passengerRepository.findById("p1")).thenReturn(Optional.of(new Passenger()));
+
+        assertThrows(NotFoundException.class, () -> travelPackageService.signUpForActivity("tp1", "p1", "a1"));
+        verify(mongoTemplate, never()).findById(any(), eq(Activity.class));
+    }
+
+    @Test
+    public void testPackageListsLeaveOutThePassengers() {
+        Mockito.when(readRouting.browse()).thenReturn(ReadPreference.primary());
+        Mockito.when(mongoTemplate.find(any(Query.class), eq(TravelPackage.class))).thenReturn(List.of(new TravelPackage()));
+
+        assertEquals(1, travelPackageService.getAllTravelPackages().size());
+        assertNull(travelPackageService.getTravelPackagePage(null, 10).getNextCursor());
+
+        verify(mongoTemplate, times(2)).find(Mockito.<Query>argThat(query -> new Document("passengers", 0).equals(query.getFieldsObject())),
+                eq(TravelPackage.class));
+    }
+
+    @Test
+    public void testAddActivityWithADuplicateNameIsRejected() {
+        Destination destination = new Destination("Baga Beach");
+        destination.setId("d1");
+        Activity activity = new Activity("Surfing", "Surfing tour", 100.0, 10, null);
+        Mockito.when(mongoTemplate.findOne(any(Query.class), eq(Destination.class))).thenReturn(destination);
+        Mockito.when(activityRepository.insert(activity)).thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> travelPackageService.addActivityToDestination("tp1", "d1", activity));
+
+        // Nothing is attached to the package or the destination
+        assertEquals("Activity 'Surfing' is already present in the destination.", exception.getMessage());
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class), eq(Document.class), eq("travelPackages"));
+        verify(activitySeatService, never()).track(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testAddActivityToADestinationOutsideThePackageRemovesTheInsertedActivity() {
+        Destination destination = new Destination("Baga Beach");
+        destination.setId("d1");
+        Activity activity = new Activity("Surfing", "Surfing tour", 100.0, 10, null);
+        Mockito.when(mongoTemplate.findOne(any(Query.class), eq(Destination.class))).thenReturn(destination);
+        Mockito.when(activityRepository.insert(activity)).thenAnswer(invocation -> {
+            activity.setId("a1");
+            return activity;
+        });
+        Mockito.when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(Document.class), eq("travelPackages")))
+                .thenReturn(null);
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> travelPackageService.addActivityToDestination("tp1", "d1", activity));
+
+        // The insert is undone, so the name stays free in the destination
+        assertEquals("Destination not found in the travel package", exception.getMessage());
+        verify(activityRepository).deleteById("a1");
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Destination.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
 }
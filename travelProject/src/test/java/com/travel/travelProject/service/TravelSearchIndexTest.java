@@ -0,0 +1,86 @@
+package com.travel.travelProject.service;
+
+import com.travel.travelProject.model.Activity;
+import com.travel.travelProject.model.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TravelSearchIndexTest {
+
+    private TravelSearchIndex index;
+
+    private static Activity activity(String id, String name, String description, double cost, String destinationName) {
+        Activity activity = new Activity(name, description, cost, 10, destinationName);
+        activity.setId(id);
+        return activity;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        index = new TravelSearchIndex();
+        index.addPackage("p1", "Goa Getaway");
+        index.addDestination("d1", "Baga Beach", "p1", "Goa Getaway");
+        index.addActivity(activity("a1", "Surfing", "Morning waves at the beach", 40.0, "Baga Beach"), "p1", 5);
+        index.addActivity(activity("a2", "Beach Volleyball", "Sunset game", 10.0, "Baga Beach"), "p1", 0);
+        index.addActivity(activity("a3", "Snorkeling", "Coral reef tour", 80.0, "Grande Island"), "p1", 3);
+    }
+
+    @Test
+    public void testPrefixWordsMatchAndNameHitsRankFirst() {
+        List<SearchResult> results = index.search("bea", null, null, null, null, 10);
+
+        assertEquals(List.of("d1", "a2", "a1"), results.stream().map(SearchResult::getId).toList());
+    }
+
+    @Test
+    public void testEveryWordMustMatchAndFiltersApplyToActivities() {
+        assertEquals(List.of("a1"), index.search("beach morn", null, null, null, null, 10)
+                .stream().map(SearchResult::getId).toList());
+        assertEquals(List.of("a1"), index.search("beach", null, 20.0, 50.0, 1, 10)
+                .stream().map(SearchResult::getId).toList());
+
+        index.updateSeatsLeft("a1", -5);
+
+        assertEquals(List.of(), index.search("beach", null, null, null, 1, 10));
+    }
+
+    @Test
+    public void testReplacedEntriesAreCompactedAway() {
+        int terms = index.termCount();
+        for (int i = 0; i < 1000; i++) {
+            index.addPackage("p1", "Goa Getaway " + i);
+        }
+        index.addPackage("p1", "Goa Getaway");
+
+        // Old names no longer match and their terms and postings are gone, not just skipped
+        assertEquals(5, index.size());
+        assertTrue(index.docCount() < 2 * 64 + 5, "doc count " + index.docCount());
+        assertTrue(index.termCount() < terms + 64, "term count " + index.termCount());
+        assertEquals(List.of(), index.search("Getaway 999", null, null, null, null, 10));
+        assertEquals(List.of("p1", "d1"), index.search("goa", null, null, null, null, 10)
+                .stream().map(SearchResult::getId).toList());
+        assertEquals(List.of("a1"), index.search("surf", null, null, null, null, 10)
+                .stream().map(SearchResult::getId).toList());
+    }
+
+    @Test
+    public void testShortPrefixMatchesEveryTermItStarts() {
+        // More terms under "s" than any cap on expanded terms, the last one sorts after all the others
+        for (int i = 0; i < 200; i++) {
+            index.addActivity(activity("s" + i, "Sa" + String.format("%03d", i), "Stop", 5.0, "Baga Beach"), "p1", 1);
+        }
+        index.addActivity(activity("z1", "Szechuan Cooking", "Class", 20.0, "Baga Beach"), "p1", 1);
+
+        List<String> ids = index.search("s", SearchResult.Type.ACTIVITY, null, null, null, 100).stream()
+                .map(SearchResult::getId).toList();
+        assertEquals(100, ids.size());
+        assertTrue(index.search("s cook", null, null, null, null, 10).stream().anyMatch(result -> result.getId().equals("z1")));
+        assertEquals(List.of("z1"), index.search("s", null, 15.0, 25.0, null, 10)
+                .stream().map(SearchResult::getId).toList());
+    }
+}